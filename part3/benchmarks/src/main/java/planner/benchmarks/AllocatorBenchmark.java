@@ -0,0 +1,54 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the searches for a single safe allocation over synthetic events
+ * and venues of increasing size, with twice as many venues as events. (See
+ * ExhaustiveAllocatorBenchmark for Allocator.allocate.)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocatorBenchmark {
+
+    // the number of events to allocate
+    @Param({ "4", "8", "12", "16", "24" })
+    public int eventCount;
+
+    // the events to be allocated
+    private List<Event> events;
+    // the venues to allocate them to
+    private List<Venue> venues;
+
+    @Setup
+    public void setUp() {
+        Corridor[] corridors = Workloads.corridors(12);
+        events = Workloads.events(eventCount);
+        venues = Workloads.venues(2 * eventCount, corridors);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> findAllocation() {
+        return Allocator.findAllocation(events, venues);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> allocateWithForwardChecking() {
+        return Allocator.allocateWithForwardChecking(events, venues);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> findAllocationInParallel() {
+        return Allocator.findAllocationInParallel(events, venues);
+    }
+
+}
@@ -0,0 +1,36 @@
+package planner.benchmarks;
+
+import java.util.*;
+
+/**
+ * Runs the benchmarks from the command line, in the same way as
+ * org.openjdk.jmh.Main, except that unless a result format (-rf) is given,
+ * the results are also written as JSON to jmh-result.json, so that they can
+ * be compared between releases.
+ */
+public final class BenchmarkMain {
+
+    /**
+     * This class only provides a main method.
+     */
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks selected by the given JMH command line arguments.
+     *
+     * @param args
+     *            the JMH command line arguments
+     * @throws Exception
+     *             if the benchmarks cannot be run
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(0, Arrays.asList("-rf", "json", "-rff",
+                    "jmh-result.json"));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+
+}
@@ -0,0 +1,44 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks Allocator.allocate, which builds every safe allocation before
+ * returning one, over the same workloads as AllocatorBenchmark. Its running
+ * time grows factorially, so only small workloads are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExhaustiveAllocatorBenchmark {
+
+    // the number of events to allocate
+    @Param({ "3", "4", "5", "6" })
+    public int eventCount;
+
+    // the events to be allocated
+    private List<Event> events;
+    // the venues to allocate them to
+    private List<Venue> venues;
+
+    @Setup
+    public void setUp() {
+        Corridor[] corridors = Workloads.corridors(12);
+        events = Workloads.events(eventCount);
+        venues = Workloads.venues(2 * eventCount, corridors);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> allocate() {
+        return Allocator.allocate(events, venues);
+    }
+
+}
@@ -0,0 +1,45 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the branch-and-bound search for the allocation with the least
+ * peak corridor load, on the same synthetic events and venues as
+ * AllocatorBenchmark. Unlike the searches for a single safe allocation, it
+ * must prove that no allocation is better than the one it returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeastLoadedAllocatorBenchmark {
+
+    // the number of events to allocate
+    @Param({ "4", "8", "12" })
+    public int eventCount;
+
+    // the events to be allocated
+    private List<Event> events;
+    // the venues to allocate them to
+    private List<Venue> venues;
+
+    @Setup
+    public void setUp() {
+        Corridor[] corridors = Workloads.corridors(12);
+        events = Workloads.events(eventCount);
+        venues = Workloads.venues(2 * eventCount, corridors);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> findLeastLoadedAllocation() {
+        return Allocator.findLeastLoadedAllocation(events, venues);
+    }
+
+}
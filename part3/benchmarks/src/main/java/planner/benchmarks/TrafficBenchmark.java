@@ -0,0 +1,75 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the Traffic operations used by the searches, for traffic
+ * records with increasing numbers of corridors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrafficBenchmark {
+
+    // the number of corridors with traffic in each record
+    @Param({ "10", "100", "1000" })
+    public int corridorCount;
+
+    // the traffic that extra is added to
+    private Traffic base;
+    // the traffic added to base
+    private Traffic extra;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(2017);
+        Corridor[] corridors = Workloads.corridors(corridorCount);
+        base = Workloads.traffic(random, corridors, 50);
+        extra = Workloads.traffic(random, corridors, 50);
+    }
+
+    /**
+     * The cost of copying base, which is included in addTraffic.
+     */
+    @Benchmark
+    public Traffic copy() {
+        return new Traffic(base);
+    }
+
+    @Benchmark
+    public Traffic addTraffic() {
+        Traffic result = new Traffic(base);
+        result.addTraffic(extra);
+        return result;
+    }
+
+    @Benchmark
+    public boolean isSafe() {
+        return base.isSafe();
+    }
+
+    @Benchmark
+    public String toStringOfBase() {
+        return base.toString();
+    }
+
+    /**
+     * A search step: adding extra and removing it again, checking safety on
+     * the way, as the searches do.
+     */
+    @Benchmark
+    public boolean addAndCheckSafe() {
+        boolean safe = base.addAndCheckSafe(extra);
+        base.removeTraffic(extra);
+        return safe;
+    }
+
+}
@@ -0,0 +1,65 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks finding the traffic generated by hosting an event at a venue,
+ * for venues that generate traffic on increasing numbers of corridors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VenueBenchmark {
+
+    // the number of corridors that the venue generates traffic on
+    @Param({ "10", "100", "1000" })
+    public int corridorCount;
+
+    // the venue hosting the event
+    private Venue venue;
+    // a distinct venue equal to venue
+    private Venue copy;
+    // the event hosted at the venue
+    private Event event;
+
+    @Setup
+    public void setUp() {
+        Corridor[] corridors = Workloads.corridors(corridorCount);
+        venue = new Venue("venue", 1000, Workloads.traffic(
+                new java.util.Random(2017), corridors, 1000));
+        event = new Event("event", 700);
+        copy = new Venue("venue", 1000, venue.getTraffic(new Event("all",
+                1000)));
+    }
+
+    @Benchmark
+    public int hashCodeOfVenue() {
+        return venue.hashCode();
+    }
+
+    /**
+     * Compares two distinct but equal venues, which is the worst case.
+     */
+    @Benchmark
+    public boolean equalsCopy() {
+        return venue.equals(copy);
+    }
+
+    @Benchmark
+    public Traffic getTraffic() {
+        return venue.getTraffic(event);
+    }
+
+    @Benchmark
+    public Traffic getSharedTraffic() {
+        return venue.getSharedTraffic(event);
+    }
+
+}
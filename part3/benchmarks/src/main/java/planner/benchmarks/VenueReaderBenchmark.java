@@ -0,0 +1,41 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks reading venue files of several megabytes. Each venue in the
+ * files generates traffic on 20 of 2000 corridors, so that a file of 10000
+ * venues is about 7 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VenueReaderBenchmark {
+
+    // the number of venues in the file
+    @Param({ "2000", "10000", "100000" })
+    public int venueCount;
+
+    // the file to be read
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Workloads.venueFile(venueCount, 2000, 20);
+    }
+
+    @Benchmark
+    public List<Venue> read() throws IOException, FormatException {
+        return VenueReader.read(file.getPath());
+    }
+
+}
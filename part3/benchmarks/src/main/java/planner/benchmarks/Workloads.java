@@ -0,0 +1,116 @@
+package planner.benchmarks;
+
+import planner.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates the synthetic corridors, venues and events used by the
+ * benchmarks. Every workload is generated from a fixed seed, so that the same
+ * parameters always give the same workload and results can be compared
+ * between releases.
+ */
+final class Workloads {
+
+    // the seed used for every workload
+    private static final long SEED = 2017;
+
+    /**
+     * This class only provides static methods.
+     */
+    private Workloads() {
+    }
+
+    /**
+     * Returns count distinct corridors with capacities between 100 and 299.
+     */
+    static Corridor[] corridors(int count) {
+        Random random = new Random(SEED);
+        Corridor[] corridors = new Corridor[count];
+        for (int i = 0; i < count; i++) {
+            corridors[i] = new Corridor(new Location("start" + i),
+                    new Location("end" + i), 100 + random.nextInt(200));
+        }
+        return corridors;
+    }
+
+    /**
+     * Returns a traffic record with traffic on each of the given corridors,
+     * with no corridor having more than maximum traffic.
+     */
+    static Traffic traffic(Random random, Corridor[] corridors, int maximum) {
+        Traffic traffic = new Traffic();
+        for (Corridor corridor : corridors) {
+            traffic.updateTraffic(corridor, 1 + random.nextInt(Math.min(
+                    maximum, corridor.getCapacity())));
+        }
+        return traffic;
+    }
+
+    /**
+     * Returns count distinct venues, each of which generates traffic on
+     * roughly one in three of the given corridors.
+     */
+    static List<Venue> venues(int count, Corridor[] corridors) {
+        Random random = new Random(SEED);
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int capacity = 20 + random.nextInt(200);
+            Traffic traffic = new Traffic();
+            for (Corridor corridor : corridors) {
+                if (random.nextInt(3) == 0) {
+                    traffic.updateTraffic(corridor, random.nextInt(Math.min(
+                            capacity, corridor.getCapacity()) / 2 + 1));
+                }
+            }
+            venues.add(new Venue("venue" + i, capacity, traffic));
+        }
+        return venues;
+    }
+
+    /**
+     * Returns count distinct events with sizes between 1 and 200.
+     */
+    static List<Event> events(int count) {
+        Random random = new Random(SEED);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event("event" + i, 1 + random.nextInt(200)));
+        }
+        return events;
+    }
+
+    /**
+     * Writes a file in the format read by VenueReader, describing the given
+     * number of venues that each generate traffic on corridorsPerVenue of
+     * corridorCount corridors, and returns it. The file is deleted when the
+     * virtual machine exits.
+     */
+    static File venueFile(int venueCount, int corridorCount,
+            int corridorsPerVenue) throws IOException {
+        Random random = new Random(SEED);
+        File file = File.createTempFile("venues", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new FileWriter(file)))) {
+            for (int i = 0; i < venueCount; i++) {
+                int capacity = 100 + random.nextInt(900);
+                out.print("Venue " + i + "\n" + capacity + "\n");
+                // the corridors already described for this venue
+                Set<Integer> used = new HashSet<>();
+                while (used.size() < corridorsPerVenue) {
+                    int corridor = random.nextInt(corridorCount);
+                    if (used.add(corridor)) {
+                        out.print("Location " + corridor + ", Location "
+                                + (corridor + 1) + ", 1000: " + (1 + random
+                                        .nextInt(capacity)) + "\n");
+                    }
+                }
+                out.print("\n");
+            }
+        }
+        return file;
+    }
+
+}
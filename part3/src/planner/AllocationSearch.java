@@ -0,0 +1,612 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A backtracking search for a safe allocation of events to venues.
+ * </p>
+ *
+ * <p>
+ * The search allocates one event at a time, in the order chosen by its
+ * EventOrdering, trying the venues for each event in the order chosen by its
+ * VenueOrdering. It keeps a running total of the traffic caused by the
+ * partial allocation, and abandons a branch as soon as that traffic is
+ * unsafe. It stops at the first safe allocation that it finds.
+ * </p>
+ *
+ * <p>
+ * The number of nodes of the search tree that were visited by the last
+ * search is available from getNodeCount, so that different orderings can be
+ * compared on the same events and venues. Fuller statistics of the last
+ * search (see SearchStatistics) are available from getStatistics, and are
+ * also added to running totals if the search is given them (see
+ * setMetrics).
+ * </p>
+ *
+ * <p>
+ * A search can be given a time limit and a limit on the number of nodes that
+ * it visits (see findResult(long, long)). If it reaches either limit, it stops
+ * and returns the best partial allocation that it has found: the deepest safe
+ * partial allocation that it visited, which places the most events.
+ * </p>
+ *
+ * <p>
+ * Dead ends are recorded in a bounded NogoodTable, so that a partial
+ * allocation that leaves the same venues available as one that has already
+ * failed, with at least as much traffic on every corridor, is abandoned at
+ * once (see setNogoodCapacity).
+ * </p>
+ *
+ * <p>
+ * Venues with the same capacity and capacity traffic are interchangeable, as
+ * are events of the same size, so the search only explores one of each set of
+ * equivalent allocations (see setSymmetryBreaking). Of several
+ * interchangeable venues that are available, only the one that comes first in
+ * the list of venues given to the constructor is tried for each event; and
+ * events of the same size are only allocated to venues in increasing order of
+ * their position in that list, in the order that the events are allocated.
+ * (The VenueOrdering only changes the order in which venues are tried.) Any
+ * safe allocation can be turned into one that meets both rules by swapping
+ * interchangeable venues and events, so no solution is lost.
+ * </p>
+ */
+public class AllocationSearch {
+
+    /**
+     * The number of sets of available venues for which a search keeps the
+     * dead ends that it finds, unless it is changed by setNogoodCapacity.
+     */
+    public static final int DEFAULT_NOGOOD_CAPACITY = 1 << 14;
+
+    /*
+     * the least number of events left to allocate for which nogoods are
+     * looked up and recorded (nearer the leaves, trying the remaining events
+     * costs less than the table does)
+     */
+    private static final int NOGOOD_MIN_REMAINING = 3;
+
+    // the events to be allocated, in the order they are allocated
+    private Event[] events;
+    // the venues that events may be allocated to
+    private Venue[] venues;
+    /*
+     * order[e] holds the indices (into venues) of the venues to try for
+     * events[e], in the order that they should be tried
+     */
+    private int[][] order;
+    /*
+     * capable[e] is the set (see VenueSet) of the venues that can host
+     * events[e]
+     */
+    private long[][] capable;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event
+     */
+    private Traffic[][] eventTraffic;
+    /*
+     * sameVenues[v] is the set of the venues that are interchangeable with
+     * venues[v] (including venues[v] itself), or null if there are no others
+     */
+    private long[][] sameVenues;
+    /*
+     * eventClass[e] is the class of events[e]: events have the same class iff
+     * they have the same size
+     */
+    private int[] eventClass;
+    // lastOfClass[c] is the index of the last event of class c
+    private int[] lastOfClass;
+    // the number of nodes visited by the last search
+    private long nodeCount;
+    // the number of branches cut by the last search because of canHost
+    private long canHostCuts;
+    // the number of branches cut by the last search because of traffic
+    private long trafficCuts;
+    // the number of branches cut by the last search because of nogoods
+    private long nogoodCuts;
+    // the number of branches cut by the last search because of symmetry
+    private long symmetryCuts;
+    // the deepest level reached by the last search
+    private int maxDepth;
+    // the statistics of the last search, or null if there has been none
+    private SearchStatistics statistics;
+    /*
+     * best[0 .. maxDepth - 1] is the deepest partial allocation visited by
+     * the last search
+     */
+    private Venue[] best;
+
+    // true if the search only explores one of each set of equivalent branches
+    private boolean symmetryBreaking = true;
+    /*
+     * classBound[c] is the venue allocated to the most recently allocated
+     * event of class c, or -1 if there is none (or symmetryBreaking is
+     * false): the next event of class c must be allocated to a later venue
+     */
+    private int[] classBound;
+    // the number of sets of venues to keep nogoods for, or zero for none
+    private int nogoodCapacity = DEFAULT_NOGOOD_CAPACITY;
+    // the dead ends found by the last search, or null if none are kept
+    private NogoodTable nogoods;
+    // the limits of the last search
+    private SearchBudget budget;
+    // true if the last search stopped because it reached one of its limits
+    private boolean stopped;
+    // the totals that the statistics of each search are added to, or null
+    private SolverMetrics metrics;
+
+    /*
+     * invariant:
+     *
+     * events != null && venues != null && order != null && capable != null
+     * && eventTraffic != null &&
+     *
+     * order.length == capable.length == eventTraffic.length == events.length
+     * &&
+     *
+     * for each e and v, VenueSet.contains(capable[e], v) iff
+     * venues[v].canHost(events[e]) iff eventTraffic[e][v] != null &&
+     *
+     * for each v and w != v, VenueSet.contains(sameVenues[v], w) iff
+     * venues[v].isInterchangeableWith(venues[w]) &&
+     *
+     * for each e and f, eventClass[e] == eventClass[f] iff
+     * events[e].getSize() == events[f].getSize() &&
+     *
+     * nodeCount >= 0 && canHostCuts >= 0 && trafficCuts >= 0 && nogoodCuts
+     * >= 0 && symmetryCuts >= 0 && maxDepth >= 0 && nogoodCapacity >= 0
+     */
+
+    /**
+     * Creates a search for a safe allocation of the given events to the given
+     * venues, that allocates events and tries venues in the order in which
+     * they are given.
+     *
+     * @param events
+     *            the events to be allocated
+     * @param venues
+     *            the venues that the events may be allocated to
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     */
+    public AllocationSearch(List<Event> events, List<Venue> venues) {
+        this(events, venues, EventOrdering.GIVEN, VenueOrdering.GIVEN);
+    }
+
+    /**
+     * Creates a search for a safe allocation of the given events to the given
+     * venues, that allocates events in the order chosen by eventOrdering and
+     * tries venues in the order chosen by venueOrdering.
+     *
+     * @param events
+     *            the events to be allocated
+     * @param venues
+     *            the venues that the events may be allocated to
+     * @param eventOrdering
+     *            the strategy for ordering the events
+     * @param venueOrdering
+     *            the strategy for ordering the venues for each event
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrdering != null && venueOrdering != null
+     */
+    public AllocationSearch(List<Event> events, List<Venue> venues,
+            EventOrdering eventOrdering, VenueOrdering venueOrdering) {
+        this.events = eventOrdering.order(events, venues).toArray(
+                new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        order = orderVenues(this.events, this.venues, venueOrdering);
+        eventTraffic = findEventTraffic(this.events, this.venues);
+        capable = findCapableVenues(eventTraffic, this.venues.length);
+        findEquivalentVenues();
+        findEquivalentEvents();
+    }
+
+    /**
+     * Returns a safe allocation of the events to the venues, if there is at
+     * least one possible safe allocation, or null otherwise.
+     *
+     * @return a safe allocation of the events to the venues, or null if there
+     *         is no possible safe allocation
+     */
+    public Map<Event, Venue> findAllocation() {
+        return (run(new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE))
+                ? bestAllocation() : null);
+    }
+
+    /**
+     * Searches for a safe allocation of the events to the venues, as
+     * findAllocation does, and returns the allocation found (if any) together
+     * with the statistics of the search.
+     *
+     * @return the (complete) result of the search
+     */
+    public SearchResult findResult() {
+        return findResult(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * <p>
+     * Searches for a safe allocation of the events to the venues, as
+     * findAllocation does, but stops if the search runs for longer than
+     * timeLimitMillis milliseconds, or would visit more than nodeLimit nodes.
+     * </p>
+     *
+     * <p>
+     * If the search finishes within its limits, the result is complete, and
+     * holds the allocation found, or null if there is none. Otherwise the
+     * result is incomplete, and holds the deepest safe partial allocation that
+     * was visited (which may not include every event, and may be empty). The
+     * time limit is checked every few hundred nodes, so the search may run
+     * slightly longer than the limit.
+     * </p>
+     *
+     * @param timeLimitMillis
+     *            the longest that the search may run, in milliseconds
+     * @param nodeLimit
+     *            the greatest number of nodes that the search may visit
+     * @return the result of the search
+     * @require timeLimitMillis >= 0 && nodeLimit >= 0
+     */
+    public SearchResult findResult(long timeLimitMillis, long nodeLimit) {
+        boolean found = run(new SearchBudget(timeLimitMillis, nodeLimit));
+        if (!found && !stopped) {
+            return new SearchResult(null, statistics, true);
+        }
+        return new SearchResult(bestAllocation(), statistics, !stopped);
+    }
+
+    /**
+     * Returns the number of nodes of the search tree (i.e. partial
+     * allocations) that were visited by the last search (the last call to
+     * findAllocation or findResult), or zero if there has been none.
+     *
+     * @return the number of nodes visited by the last search
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Sets the number of sets of available venues for which the search keeps
+     * the dead ends that it finds (see NogoodTable), from the next search
+     * onwards. Each set takes memory for a few traffic records, and the least
+     * recently used set is forgotten when the table is full. If capacity is
+     * zero, no dead ends are kept. The default is DEFAULT_NOGOOD_CAPACITY.
+     *
+     * @param capacity
+     *            the number of sets of venues to keep dead ends for, or zero
+     * @require capacity >= 0
+     */
+    public void setNogoodCapacity(int capacity) {
+        nogoodCapacity = capacity;
+    }
+
+    /**
+     * Sets whether the search explores only one of each set of equivalent
+     * branches, from the next search onwards: branches that differ only by
+     * swapping interchangeable venues (with the same capacity and capacity
+     * traffic) or events (of the same size). This never changes whether an
+     * allocation is found, but it may change which one. The default is true.
+     *
+     * @param symmetryBreaking
+     *            true iff equivalent branches should be skipped
+     */
+    public void setSymmetryBreaking(boolean symmetryBreaking) {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * Sets the totals that the statistics of each search are added to, from
+     * the next search onwards, or stops adding them if metrics is null. By
+     * default, the statistics are not added to any totals.
+     *
+     * @param metrics
+     *            the totals to add the statistics of each search to, or null
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the statistics of the last search (the last call to
+     * findAllocation or findResult), or null if there has been none.
+     *
+     * @return the statistics of the last search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Runs a search within the given budget, recording its statistics, and
+     * returns true if it found a safe allocation of all of the events.
+     *
+     * @require budget != null
+     * @ensure best[0 .. maxDepth - 1] is the deepest partial allocation that
+     *         was visited, and stopped is true iff the search reached one of
+     *         its limits
+     */
+    private boolean run(SearchBudget budget) {
+        this.budget = budget;
+        stopped = false;
+        nodeCount = 0;
+        canHostCuts = 0;
+        trafficCuts = 0;
+        nogoodCuts = 0;
+        symmetryCuts = 0;
+        maxDepth = 0;
+        classBound = new int[lastOfClass.length];
+        Arrays.fill(classBound, -1);
+        best = new Venue[events.length];
+        nogoods = (nogoodCapacity > 0 ? new NogoodTable(nogoodCapacity) : null);
+        boolean found = search(0, new Venue[events.length], VenueSet.full(
+                venues.length), new Traffic());
+        nogoods = null;
+        statistics = new SearchStatistics(nodeCount, canHostCuts, trafficCuts,
+                nogoodCuts, symmetryCuts, maxDepth, budget.elapsed());
+        if (metrics != null) {
+            metrics.record(statistics);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the deepest partial allocation visited by the last search, as a
+     * new map.
+     */
+    private Map<Event, Venue> bestAllocation() {
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int e = 0; e < maxDepth; e++) {
+            allocation.put(events[e], best[e]);
+        }
+        return allocation;
+    }
+
+    /**
+     * Extends the given partial allocation of the first index events to a safe
+     * allocation of all of the events, returning true if this is possible, and
+     * false otherwise.
+     *
+     * @require 0 <= index <= events.length && assigned.length == events.length
+     *          && assigned[0 .. index - 1] allocates the first index events
+     *          to distinct venues that can host them && available is the set
+     *          of venues not in assigned[0 .. index - 1] && traffic is the
+     *          (safe) traffic caused by that partial allocation
+     * @ensure If true is returned, then assigned is a safe allocation of all
+     *         of the events; otherwise assigned, available and traffic are the
+     *         same as they were when this method was called, and either there
+     *         is no safe extension or stopped is true.
+     */
+    private boolean search(int index, Venue[] assigned, long[] available,
+            Traffic traffic) {
+        if (budget.isSpent(nodeCount)) {
+            stopped = true;
+            return false;
+        }
+        nodeCount++;
+        if (index > maxDepth) {
+            maxDepth = index;
+            System.arraycopy(assigned, 0, best, 0, index);
+        }
+        /* BASE CASE: no more events to allocate */
+        if (index == events.length) {
+            return true;
+        }
+        // whether this node is far enough from the leaves to use nogoods
+        boolean useNogoods = nogoods != null
+                && events.length - index >= NOGOOD_MIN_REMAINING;
+        if (useNogoods && nogoods.contains(available, traffic, classBound)) {
+            nogoodCuts++;
+            return false;
+        }
+
+        /* RECURSIVE CASE: there is at least one more event to allocate. */
+        for (int v : order[index]) {
+            if (!VenueSet.contains(available, v)) {
+                continue;
+            }
+            if (!VenueSet.contains(capable[index], v)) {
+                canHostCuts++;
+                continue;
+            }
+            if (symmetryBreaking && isSymmetric(index, v, available)) {
+                symmetryCuts++;
+                continue;
+            }
+            // the traffic caused by hosting the next event at the venue
+            Traffic extraTraffic = eventTraffic[index][v];
+            // prune this branch as soon as the traffic becomes unsafe
+            if (traffic.addAndCheckSafe(extraTraffic)) {
+                VenueSet.remove(available, v);
+                assigned[index] = venues[v];
+                // the bound on the next event of the same class, to restore
+                int bound = classBound[eventClass[index]];
+                if (symmetryBreaking) {
+                    classBound[eventClass[index]] = v;
+                }
+                if (search(index + 1, assigned, available, traffic)) {
+                    return true;
+                }
+                classBound[eventClass[index]] = bound;
+                assigned[index] = null;
+                VenueSet.add(available, v);
+            } else {
+                trafficCuts++;
+            }
+            traffic.removeTraffic(extraTraffic);
+            if (stopped) {
+                return false;
+            }
+        }
+        if (useNogoods) {
+            nogoods.add(available, traffic, remainingBounds(index));
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if allocating events[index] to venue v is ruled out by
+     * symmetry breaking: because an interchangeable venue that comes before v
+     * is available, or because an earlier event of the same size has been
+     * allocated to a venue after v.
+     *
+     * Both rules compare venues by their index in venues, not by the order
+     * in which they are tried, so that they agree on which of the equivalent
+     * allocations is kept.
+     *
+     * @require 0 <= index < events.length && VenueSet.contains(available, v)
+     */
+    private boolean isSymmetric(int index, int v, long[] available) {
+        return v < classBound[eventClass[index]] || (sameVenues[v] != null
+                && VenueSet.firstOfBoth(sameVenues[v], available) != v);
+    }
+
+    /**
+     * Returns a copy of classBound in which the bound of each class that has
+     * no events left to allocate, after the first index events, is -1 (since
+     * it cannot affect the rest of the search).
+     */
+    private int[] remainingBounds(int index) {
+        int[] bounds = classBound.clone();
+        for (int c = 0; c < bounds.length; c++) {
+            if (lastOfClass[c] < index) {
+                bounds[c] = -1;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns, for each of the given events, the indices (into venues) of the
+     * venues to try for it, in the order chosen by venueOrdering.
+     *
+     * @require events != null && venues != null && venueOrdering != null
+     * @ensure Returns an array order such that order[e] holds the index of
+     *         each venue exactly once, in the order that venueOrdering gives
+     *         for events[e].
+     */
+    static int[][] orderVenues(Event[] events, Venue[] venues,
+            VenueOrdering venueOrdering) {
+        List<Venue> venueList = Arrays.asList(venues); // the venues to order
+        // the position of each venue in the venues array
+        Map<Venue, Integer> venueIndex = new IdentityHashMap<>();
+        for (int v = 0; v < venues.length; v++) {
+            venueIndex.put(venues[v], v);
+        }
+        int[][] order = new int[events.length][]; // the result
+        for (int e = 0; e < events.length; e++) {
+            List<Venue> ordered = venueOrdering.order(events[e], venueList);
+            order[e] = new int[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                order[e][i] = venueIndex.get(ordered.get(i));
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the (shared) traffic caused by hosting each of the given events
+     * at each of the given venues.
+     *
+     * @require events != null && venues != null
+     * @ensure Returns an array eventTraffic such that eventTraffic[e][v] is
+     *         venues[v].getSharedTraffic(events[e]) if venues[v] can host
+     *         events[e], and null otherwise.
+     */
+    static Traffic[][] findEventTraffic(Event[] events, Venue[] venues) {
+        // the result
+        Traffic[][] eventTraffic = new Traffic[events.length][venues.length];
+        for (int e = 0; e < events.length; e++) {
+            for (int v = 0; v < venues.length; v++) {
+                if (venues[v].canHost(events[e])) {
+                    eventTraffic[e][v] = venues[v].getSharedTraffic(
+                            events[e]);
+                }
+            }
+        }
+        return eventTraffic;
+    }
+
+    /**
+     * Returns, for each event, the set (see VenueSet) of the venues that can
+     * host it.
+     *
+     * @require eventTraffic is as returned by findEventTraffic for venueCount
+     *          venues
+     * @ensure Returns an array capable such that VenueSet.contains(capable[e],
+     *         v) iff eventTraffic[e][v] != null.
+     */
+    static long[][] findCapableVenues(Traffic[][] eventTraffic,
+            int venueCount) {
+        long[][] capable = new long[eventTraffic.length][]; // the result
+        for (int e = 0; e < eventTraffic.length; e++) {
+            capable[e] = VenueSet.empty(venueCount);
+            for (int v = 0; v < venueCount; v++) {
+                if (eventTraffic[e][v] != null) {
+                    VenueSet.add(capable[e], v);
+                }
+            }
+        }
+        return capable;
+    }
+
+    /**
+     * Sets sameVenues from the venues, grouping them by
+     * Venue.interchangeHashCode before comparing them.
+     */
+    private void findEquivalentVenues() {
+        sameVenues = new long[venues.length][];
+        // the venues with each hash code, in order
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int v = 0; v < venues.length; v++) {
+            groups.computeIfAbsent(venues[v].interchangeHashCode(),
+                    k -> new ArrayList<>()).add(v);
+        }
+        for (List<Integer> group : groups.values()) {
+            for (int i = 0; i < group.size(); i++) {
+                int v = group.get(i);
+                if (sameVenues[v] != null) {
+                    continue;
+                }
+                for (int j = i + 1; j < group.size(); j++) {
+                    int w = group.get(j);
+                    if (sameVenues[w] == null && venues[v]
+                            .isInterchangeableWith(venues[w])) {
+                        if (sameVenues[v] == null) {
+                            sameVenues[v] = VenueSet.empty(venues.length);
+                            VenueSet.add(sameVenues[v], v);
+                        }
+                        VenueSet.add(sameVenues[v], w);
+                        sameVenues[w] = sameVenues[v];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets eventClass and lastOfClass from the sizes of the events.
+     */
+    private void findEquivalentEvents() {
+        eventClass = new int[events.length];
+        // the class of the events of each size
+        Map<Integer, Integer> classOfSize = new HashMap<>();
+        for (int e = 0; e < events.length; e++) {
+            Integer c = classOfSize.get(events[e].getSize());
+            if (c == null) {
+                c = classOfSize.size();
+                classOfSize.put(events[e].getSize(), c);
+            }
+            eventClass[e] = c;
+        }
+        lastOfClass = new int[classOfSize.size()];
+        for (int e = 0; e < events.length; e++) {
+            lastOfClass[eventClass[e]] = e;
+        }
+    }
+
+}
@@ -0,0 +1,269 @@
+package planner;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A lazy source of the safe allocations of events to venues, that finds each
+ * allocation only when it is asked for the next one. Allocations are produced
+ * as AllocationViews, with the events and venues numbered by their positions
+ * in the lists given to the spliterator.
+ * </p>
+ *
+ * <p>
+ * The spliterator runs the same backtracking search as AllocationSearch, but
+ * with an explicit stack (one cursor per event) in place of recursion, so that
+ * the search can be suspended after each safe allocation is found and resumed
+ * from the same point later. Its memory use is independent of the number of
+ * allocations: only the allocation being built, its traffic and the cursors
+ * are kept.
+ * </p>
+ *
+ * <p>
+ * The spliterator can be split for parallel streams: the venues that have not
+ * yet been tried for the first event are shared between the two halves, each
+ * of which searches the subtrees below its own venues. (Different subtrees
+ * never contain the same allocation.)
+ * </p>
+ */
+final class AllocationSpliterator implements Spliterator<AllocationView> {
+
+    // the events and venues in the order given, shared by the allocations
+    private final AllocationView.Tables tables;
+    // the events to be allocated, in the order they are allocated
+    private final Event[] events;
+    // ordinal[e] is the position of events[e] in the order given
+    private final int[] ordinal;
+    // the venues that events may be allocated to
+    private final Venue[] venues;
+    /*
+     * capable[e] is the set (see VenueSet) of the venues that can host
+     * events[e]
+     */
+    private final long[][] capable;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event. The table is
+     * shared by the spliterators split from the same search.
+     */
+    private final Traffic[][] eventTraffic;
+
+    // one past the last venue that this spliterator tries for the first event
+    private int fence;
+    // the number of events in the current partial allocation
+    private int depth;
+    /*
+     * cursor[e] is the next venue to try for events[e], for each e <= depth
+     * (or each e < depth, if depth == events.length)
+     */
+    private final int[] cursor;
+    // the venues allocated to the first depth events
+    private final int[] assigned;
+    // the venues that have not been allocated an event
+    private final long[] available;
+    // the traffic caused by the current partial allocation
+    private final Traffic traffic;
+    // true if the current partial allocation has already been returned
+    private boolean returned;
+    // true if every allocation has been returned
+    private boolean exhausted;
+
+    /*
+     * invariant:
+     *
+     * 0 <= depth <= events.length && cursor.length == assigned.length ==
+     * events.length &&
+     *
+     * assigned[0 .. depth - 1] allocates the first depth events to distinct
+     * venues that can host them && available is the set of venues not in
+     * assigned[0 .. depth - 1] && traffic is the (safe) traffic caused by
+     * that partial allocation &&
+     *
+     * (depth > 0 ==> assigned[0] < fence) &&
+     *
+     * (returned ==> depth == events.length)
+     */
+
+    /**
+     * Creates a spliterator over every safe allocation of the given events to
+     * the given venues.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     */
+    AllocationSpliterator(List<Event> events, List<Venue> venues) {
+        tables = new AllocationView.Tables(events, venues);
+        this.events = EventOrdering.FEWEST_VENUES_FIRST.order(events, venues)
+                .toArray(new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        ordinal = new int[this.events.length];
+        for (int e = 0; e < this.events.length; e++) {
+            ordinal[e] = tables.ordinalOf(this.events[e]);
+        }
+        eventTraffic = AllocationSearch.findEventTraffic(this.events,
+                this.venues);
+        capable = AllocationSearch.findCapableVenues(eventTraffic,
+                this.venues.length);
+        fence = this.venues.length;
+        cursor = new int[this.events.length];
+        assigned = new int[this.events.length];
+        available = VenueSet.full(this.venues.length);
+        traffic = new Traffic();
+    }
+
+    /**
+     * Creates a spliterator over the safe allocations in which the first
+     * event is allocated to one of the venues numbered origin .. fence - 1,
+     * sharing the tables of the given spliterator.
+     *
+     * @require 0 <= origin <= fence <= other.venues.length &&
+     *          other.events.length > 0
+     */
+    private AllocationSpliterator(AllocationSpliterator other, int origin,
+            int fence) {
+        tables = other.tables;
+        events = other.events;
+        ordinal = other.ordinal;
+        venues = other.venues;
+        capable = other.capable;
+        eventTraffic = other.eventTraffic;
+        this.fence = fence;
+        cursor = new int[events.length];
+        cursor[0] = origin;
+        assigned = new int[events.length];
+        available = VenueSet.full(venues.length);
+        traffic = new Traffic();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super AllocationView> action) {
+        if (!advance()) {
+            return false;
+        }
+        action.accept(toView());
+        return true;
+    }
+
+    @Override
+    public Spliterator<AllocationView> trySplit() {
+        if (exhausted || events.length == 0) {
+            return null;
+        }
+        // the first venue for the first event that has not been tried yet
+        int origin = cursor[0];
+        int middle = (origin + fence) >>> 1;
+        if (middle <= origin) {
+            return null;
+        }
+        // the untried venues from middle onwards are given to a new half
+        AllocationSpliterator suffix = new AllocationSpliterator(this,
+                middle, fence);
+        fence = middle;
+        return suffix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+
+    /**
+     * Moves the search to the next safe allocation of all of the events,
+     * returning true if there is one, and false if every allocation has been
+     * found.
+     *
+     * @ensure If true is returned, then assigned[0 .. events.length - 1] is
+     *         the next safe allocation, and depth == events.length.
+     */
+    private boolean advance() {
+        if (exhausted) {
+            return false;
+        }
+        if (returned) {
+            // resume the search from the allocation that was last returned
+            returned = false;
+            if (!backtrack()) {
+                return false;
+            }
+        }
+        while (depth < events.length) {
+            // the highest venue to try for the next event, plus one
+            int limit = (depth == 0 ? fence : venues.length);
+            int v = cursor[depth];
+            while (v < limit && !tryVenue(v)) {
+                v++;
+            }
+            if (v < limit) {
+                // the next event has been allocated to venue v
+                cursor[depth] = v + 1;
+                assigned[depth] = v;
+                depth++;
+                if (depth < events.length) {
+                    cursor[depth] = 0;
+                }
+            } else if (!backtrack()) {
+                return false;
+            }
+        }
+        returned = true;
+        return true;
+    }
+
+    /**
+     * Tries to allocate the next event (events[depth]) to venue v, adding its
+     * traffic, and returns true if v is available, can host the event, and
+     * the traffic is still safe. Otherwise nothing is changed.
+     *
+     * @require depth < events.length && 0 <= v < venues.length
+     */
+    private boolean tryVenue(int v) {
+        if (!VenueSet.containsBoth(capable[depth], available, v)) {
+            return false;
+        }
+        if (!traffic.addAndCheckSafe(eventTraffic[depth][v])) {
+            traffic.removeTraffic(eventTraffic[depth][v]);
+            return false;
+        }
+        VenueSet.remove(available, v);
+        return true;
+    }
+
+    /**
+     * Removes the last event from the current partial allocation, returning
+     * false (and marking the search exhausted) if the partial allocation is
+     * already empty.
+     */
+    private boolean backtrack() {
+        if (depth == 0) {
+            exhausted = true;
+            return false;
+        }
+        depth--;
+        VenueSet.add(available, assigned[depth]);
+        traffic.removeTraffic(eventTraffic[depth][assigned[depth]]);
+        return true;
+    }
+
+    /**
+     * Returns the current allocation as a view, with the events numbered in
+     * the order given.
+     *
+     * @require depth == events.length
+     */
+    private AllocationView toView() {
+        // the venue allocated to each event, in the order given
+        int[] venueOf = new int[events.length];
+        for (int e = 0; e < events.length; e++) {
+            venueOf[ordinal[e]] = assigned[e];
+        }
+        return new AllocationView(tables, venueOf);
+    }
+
+}
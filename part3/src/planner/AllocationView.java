@@ -0,0 +1,190 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An immutable, compact representation of an allocation of events to venues.
+ * </p>
+ *
+ * <p>
+ * The events and venues of a search are numbered (their ordinals) by their
+ * positions in the lists that were given to the search, and an allocation is
+ * held as an int[] giving the ordinal of the venue allocated to each event.
+ * The lists themselves are held once, in tables shared by every allocation
+ * found by the same search, so that an allocation of n events takes about 4n
+ * bytes, rather than the hundreds of bytes of a HashMap. An allocation is only
+ * turned into a Map when toMap is called.
+ * </p>
+ */
+public final class AllocationView {
+
+    // the events and venues of the search that found this allocation
+    private final Tables tables;
+    // venueOf[i] is the ordinal of the venue allocated to event i
+    private final int[] venueOf;
+
+    /*
+     * invariant:
+     *
+     * tables != null && venueOf != null && venueOf.length ==
+     * tables.events.length &&
+     *
+     * for each i, 0 <= venueOf[i] < tables.venues.length
+     */
+
+    /**
+     * Creates the allocation of each event i of the given tables to venue
+     * venueOf[i]. The view takes ownership of the given array.
+     *
+     * @require tables != null && venueOf != null && venueOf.length ==
+     *          tables.events.length && 0 <= venueOf[i] < tables.venues.length
+     *          for each i
+     */
+    AllocationView(Tables tables, int[] venueOf) {
+        this.tables = tables;
+        this.venueOf = venueOf;
+    }
+
+    /**
+     * Returns the number of events in the allocation.
+     *
+     * @return the number of events allocated
+     */
+    public int size() {
+        return venueOf.length;
+    }
+
+    /**
+     * Returns the event with the given ordinal.
+     *
+     * @param event
+     *            the ordinal of an event
+     * @return the event at position event in the list of events searched
+     * @throws IndexOutOfBoundsException
+     *             if event < 0 or event >= size()
+     */
+    public Event getEvent(int event) {
+        return tables.events[event];
+    }
+
+    /**
+     * Returns the ordinal of the venue allocated to the event with the given
+     * ordinal.
+     *
+     * @param event
+     *            the ordinal of an event
+     * @return the position in the list of venues searched of the venue
+     *         allocated to the event
+     * @throws IndexOutOfBoundsException
+     *             if event < 0 or event >= size()
+     */
+    public int getVenueOrdinal(int event) {
+        return venueOf[event];
+    }
+
+    /**
+     * Returns the venue allocated to the event with the given ordinal.
+     *
+     * @param event
+     *            the ordinal of an event
+     * @return the venue allocated to the event
+     * @throws IndexOutOfBoundsException
+     *             if event < 0 or event >= size()
+     */
+    public Venue getVenue(int event) {
+        return tables.venues[venueOf[event]];
+    }
+
+    /**
+     * Returns the venue allocated to the given event, or null if the event is
+     * not part of the allocation.
+     *
+     * @param event
+     *            the event to look up
+     * @return the venue allocated to event, or null if there is none
+     */
+    public Venue getVenue(Event event) {
+        Integer ordinal = tables.eventOrdinals.get(event);
+        return (ordinal == null ? null : getVenue(ordinal));
+    }
+
+    /**
+     * Returns the allocation as a new map from each event to its venue.
+     *
+     * @return a new map holding the allocation
+     */
+    public Map<Event, Venue> toMap() {
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int i = 0; i < venueOf.length; i++) {
+            allocation.put(tables.events[i], tables.venues[venueOf[i]]);
+        }
+        return allocation;
+    }
+
+    /**
+     * Returns true if and only if the given object is an AllocationView found
+     * by the same search as this one, that allocates each event to the same
+     * venue.
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof AllocationView)) {
+            return false;
+        }
+        AllocationView other = (AllocationView) object; // the view to compare
+        return tables == other.tables && Arrays.equals(venueOf,
+                other.venueOf);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(venueOf);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * The events and venues of a search, shared by each of the allocations
+     * that it finds.
+     */
+    static final class Tables {
+
+        // the events of the search, indexed by ordinal
+        private final Event[] events;
+        // the venues of the search, indexed by ordinal
+        private final Venue[] venues;
+        // the ordinal of each event
+        private final Map<Event, Integer> eventOrdinals;
+
+        /**
+         * Creates the tables for a search of the given events and venues.
+         *
+         * @require events != null && venues != null && !events.contains(null)
+         *          && !venues.contains(null) && events does not contain
+         *          duplicate events
+         */
+        Tables(List<Event> events, List<Venue> venues) {
+            this.events = events.toArray(new Event[0]);
+            this.venues = venues.toArray(new Venue[0]);
+            eventOrdinals = new HashMap<>();
+            for (int i = 0; i < this.events.length; i++) {
+                eventOrdinals.put(this.events[i], i);
+            }
+        }
+
+        /**
+         * Returns the ordinal of the given event.
+         *
+         * @require event is one of the events of the tables
+         */
+        int ordinalOf(Event event) {
+            return eventOrdinals.get(event);
+        }
+
+    }
+
+}
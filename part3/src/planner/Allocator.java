@@ -1,6 +1,7 @@
 package planner;
 
 import java.util.*;
+import java.util.stream.*;
 
 /**
  * Provides a method for finding a safe allocation of events to venues.
@@ -37,6 +38,346 @@ public class Allocator {
         }
     }
 
+    /**
+     * <p>
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * Unlike allocate, this method stops at the first safe allocation that it
+     * finds. Events are placed one at a time while a running total of the
+     * traffic caused by the partial allocation is maintained, and a branch of
+     * the search is abandoned as soon as that traffic becomes unsafe, rather
+     * than after every event has been placed.
+     * </p>
+     * 
+     * <p>
+     * Events that can be hosted at the fewest venues are placed first, and
+     * the venues that put the least pressure on the traffic corridors are
+     * tried first (see AllocationSearch for searches with other orderings).
+     * The given lists are not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    public static Map<Event, Venue> findAllocation(List<Event> events,
+            List<Venue> venues) {
+        return new AllocationSearch(events, venues,
+                EventOrdering.FEWEST_VENUES_FIRST,
+                VenueOrdering.LEAST_PRESSURE_FIRST).findAllocation();
+    }
+
+    /**
+     * <p>
+     * Searches for a safe allocation of events to venues in the same way as
+     * findAllocation, and returns the allocation found (or null, if there is
+     * no possible safe allocation) together with statistics of the search:
+     * the number of nodes visited, the number of branches cut because a venue
+     * could not host an event or because the traffic would have been unsafe,
+     * the deepest level reached, and the wall time taken.
+     * </p>
+     * 
+     * <p>
+     * The statistics can be added to running totals with
+     * SolverMetrics.record. The given lists are not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns the result of a search whose allocation is a safe
+     *         allocation of events to venues, if there is at least one
+     *         possible safe allocation, or null otherwise.
+     */
+    public static SearchResult findAllocationWithStatistics(
+            List<Event> events, List<Venue> venues) {
+        return new AllocationSearch(events, venues,
+                EventOrdering.FEWEST_VENUES_FIRST,
+                VenueOrdering.LEAST_PRESSURE_FIRST).findResult();
+    }
+
+    /**
+     * <p>
+     * Searches for a safe allocation of events to venues in the same way as
+     * findAllocation, but gives up if the search runs for longer than
+     * timeLimitMillis milliseconds, or would visit more than nodeLimit nodes
+     * of the search tree, so that a hard input cannot hold up the caller
+     * indefinitely.
+     * </p>
+     * 
+     * <p>
+     * If the search finishes within its limits, the result is complete (see
+     * SearchResult.isComplete) and its allocation is a safe allocation of all
+     * of the events, or null if there is none. Otherwise the result is
+     * incomplete, and its allocation is the safe partial allocation placing
+     * the most events that the search reached before it stopped. (The time
+     * limit is checked every few hundred nodes, so the search may overrun it
+     * slightly.) The given lists are not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          timeLimitMillis >= 0 && nodeLimit >= 0
+     * @ensure Returns the result of a search that ran for about
+     *         timeLimitMillis milliseconds and nodeLimit nodes at most, whose
+     *         allocation is a safe allocation of some or all of the events.
+     */
+    public static SearchResult findAllocationWithin(List<Event> events,
+            List<Venue> venues, long timeLimitMillis, long nodeLimit) {
+        return new AllocationSearch(events, venues,
+                EventOrdering.FEWEST_VENUES_FIRST,
+                VenueOrdering.LEAST_PRESSURE_FIRST).findResult(
+                        timeLimitMillis, nodeLimit);
+    }
+
+    /**
+     * <p>
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * This method uses a constraint-propagation search with forward checking
+     * (see ForwardCheckingSearch). The search keeps, for each event that has
+     * not been placed yet, the set of venues that it could still be placed
+     * at; after each event is placed, venues that are taken, or whose traffic
+     * no longer fits in the remaining capacity of the corridors, are removed
+     * from these sets, and the search backtracks as soon as any set is empty.
+     * The event with the fewest remaining venues is always placed next. The
+     * given lists are not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    public static Map<Event, Venue> allocateWithForwardChecking(
+            List<Event> events, List<Venue> venues) {
+        return new ForwardCheckingSearch(events, venues).findAllocation();
+    }
+
+    /**
+     * <p>
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * This method uses a plain backtracking search that allocates the events,
+     * and tries the venues for each event, in the order in which they are
+     * given. It uses none of the orderings, the nogood table or the symmetry
+     * breaking of findAllocation. Instead it splits the search into
+     * independent subtrees that are searched in parallel on the common
+     * fork/join pool (see ParallelAllocator). The search stops as soon as any
+     * subtree yields a safe allocation, so which one is returned may vary from
+     * call to call.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    public static Map<Event, Venue> findAllocationInParallel(
+            List<Event> events, List<Venue> venues) {
+        return ParallelAllocator.findAllocation(events, venues);
+    }
+
+    /**
+     * Returns a list of all of the possible safe allocations of events to
+     * venues, found by searching independent subtrees of the search in
+     * parallel on the common fork/join pool.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a list containing each of the possible safe allocations
+     *         of events to venues exactly once. (If there are no possible
+     *         allocations, then the list is empty.)
+     */
+    public static List<Map<Event, Venue>> allocationsInParallel(
+            List<Event> events, List<Venue> venues) {
+        List<Map<Event, Venue>> allocations = new ArrayList<>();
+        for (AllocationView allocation : allocationViewsInParallel(events,
+                venues)) {
+            allocations.add(allocation.toMap());
+        }
+        return allocations;
+    }
+
+    /**
+     * Returns a list of all of the possible safe allocations of events to
+     * venues, as compact views (see AllocationView) in which each event and
+     * venue is numbered by its position in the given lists. The allocations
+     * are found in the same way as by allocationsInParallel.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a list containing each of the possible safe allocations
+     *         of events to venues exactly once. (If there are no possible
+     *         allocations, then the list is empty.)
+     */
+    public static List<AllocationView> allocationViewsInParallel(
+            List<Event> events, List<Venue> venues) {
+        return ParallelAllocator.allocations(events, venues);
+    }
+
+    /**
+     * <p>
+     * Returns a lazy stream of all of the possible safe allocations of events
+     * to venues, each appearing exactly once.
+     * </p>
+     * 
+     * <p>
+     * Unlike allocate, this method does not hold every allocation in memory:
+     * each allocation is found only when the stream asks for it, by resuming
+     * a backtracking search from the allocation before it (see
+     * AllocationSpliterator). So short-circuiting operations such as
+     * limit(k), findFirst() or anyMatch(...) only search as far as they need
+     * to, and a parallel stream splits the search between its workers.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a stream containing each of the possible safe
+     *         allocations of events to venues exactly once. (If there are no
+     *         possible allocations, then the stream is empty.)
+     */
+    public static Stream<Map<Event, Venue>> streamAllocations(
+            List<Event> events, List<Venue> venues) {
+        return streamAllocationViews(events, venues).map(
+                AllocationView::toMap);
+    }
+
+    /**
+     * Returns a lazy stream of all of the possible safe allocations of events
+     * to venues, as compact views (see AllocationView) in which each event and
+     * venue is numbered by its position in the given lists. The allocations
+     * are found in the same way as by streamAllocations.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a stream containing each of the possible safe
+     *         allocations of events to venues exactly once. (If there are no
+     *         possible allocations, then the stream is empty.)
+     */
+    public static Stream<AllocationView> streamAllocationViews(
+            List<Event> events, List<Venue> venues) {
+        return StreamSupport.stream(new AllocationSpliterator(events, venues),
+                false);
+    }
+
+    /**
+     * <p>
+     * Returns the safe allocation of events to venues that leaves the most
+     * headroom on the busiest corridor, if there is at least one possible safe
+     * allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * The load of a corridor is the traffic on it divided by its capacity,
+     * and the peak load of an allocation is the greatest load of any corridor
+     * under the traffic that the allocation causes. This method returns an
+     * allocation whose peak load is no greater than that of any other safe
+     * allocation. It is found by a branch-and-bound search (see
+     * PeakLoadSearch) that abandons a partial allocation as soon as a lower
+     * bound on the peak load of its extensions is no better than the best
+     * allocation found so far, rather than enumerating every allocation.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues with the least
+     *         possible peak corridor load, if there is at least one possible
+     *         safe allocation, or null otherwise.
+     */
+    public static Map<Event, Venue> findLeastLoadedAllocation(
+            List<Event> events, List<Venue> venues) {
+        return new PeakLoadSearch(events, venues).findAllocation();
+    }
+
+    /**
+     * <p>
+     * Returns a safe allocation of as many of the given events as possible to
+     * venues, for use when there may be no safe allocation of every event.
+     * </p>
+     * 
+     * <p>
+     * The allocation returned maximises the coverage of the events under the
+     * given objective: the number of events allocated, for
+     * CoverageObjective.EVENT_COUNT, or their total size, for
+     * CoverageObjective.TOTAL_SIZE. Each event allocated must be hosted at a
+     * distinct venue that can host it, and the total traffic must be safe, as
+     * for allocate. If there is a safe allocation of every event, one is
+     * returned; if no event can be allocated, the allocation returned is
+     * empty.
+     * </p>
+     * 
+     * <p>
+     * A branch-and-bound search (see CoverageSearch) is used, which abandons a
+     * partial allocation as soon as the events that could still be placed
+     * could not beat the best allocation found so far. The given lists are
+     * not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          objective != null
+     * @ensure Returns a safe allocation of some of the events to venues,
+     *         whose coverage under objective is no less than that of any
+     *         other safe allocation of some of the events.
+     */
+    public static Map<Event, Venue> findMaximumCoverage(List<Event> events,
+            List<Venue> venues, CoverageObjective objective) {
+        return new CoverageSearch(events, venues, objective).findAllocation();
+    }
+
+    /**
+     * <p>
+     * Searches for a safe allocation of as many of the given events as
+     * possible, as findMaximumCoverage does, but gives up if the search runs
+     * for longer than timeLimitMillis milliseconds, or would visit more than
+     * nodeLimit nodes of the search tree.
+     * </p>
+     * 
+     * <p>
+     * The search usually finds its best allocation long before it can prove
+     * that no better allocation exists. If it finishes within its limits, the
+     * result is complete, and its allocation has the greatest coverage;
+     * otherwise the result is incomplete, and its allocation is the safe
+     * allocation with the greatest coverage found before the search stopped.
+     * The given lists are not modified by this method.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          objective != null && timeLimitMillis >= 0 && nodeLimit >= 0
+     * @ensure Returns the result of a search that ran for about
+     *         timeLimitMillis milliseconds and nodeLimit nodes at most, whose
+     *         allocation is a safe allocation of some of the events.
+     */
+    public static SearchResult findMaximumCoverageWithin(List<Event> events,
+            List<Venue> venues, CoverageObjective objective,
+            long timeLimitMillis, long nodeLimit) {
+        return new CoverageSearch(events, venues, objective).findResult(
+                timeLimitMillis, nodeLimit);
+    }
+
     /**
      * Returns the set of all possible safe allocations of events to venues.
      * 
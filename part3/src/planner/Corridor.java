@@ -20,12 +20,23 @@ public class Corridor implements Comparable<Corridor> {
     private Location end;
     // the maximum capacity of the corridor -- integer units represent people
     private int capacity;
+    // the id of the corridor if it was created by the CorridorRegistry, or -1
+    private final int id;
+    // the registered corridor equal to this one, whose id this corridor
+    // shares, or null until the id is first needed
+    private volatile Corridor registered;
+    // the hash code of the corridor, computed once on construction
+    private int hash;
 
     /*
      * invariant:
      * 
      * name!= null && start!= null && end!=null && !start.equals(end) &&
-     * capacity > 0
+     * capacity > 0 &&
+     * 
+     * (id >= 0 iff registered == this) &&
+     * 
+     * (registered == null || (registered.id >= 0 && registered.equals(this)))
      */
 
     /**
@@ -46,6 +57,22 @@ public class Corridor implements Comparable<Corridor> {
      *             is less than or equal to zero
      */
     public Corridor(Location start, Location end, int capacity) {
+        this(start, end, capacity, -1);
+    }
+
+    /**
+     * Creates a new traffic corridor with the given start and end locations,
+     * maximum capacity and id. Only the CorridorRegistry creates corridors
+     * with ids.
+     * 
+     * @throws NullPointerException
+     *             if either start or end are null
+     * @throws IllegalArgumentException
+     *             if the start location is equal to the end location, or if
+     *             capacity is less than or equal to zero
+     * @require id >= -1
+     */
+    Corridor(Location start, Location end, int capacity, int id) {
         if (start == null || end == null) {
             throw new NullPointerException(
                     "Neither the start or end location can be null.");
@@ -62,6 +89,11 @@ public class Corridor implements Comparable<Corridor> {
         this.start = start;
         this.end = end;
         this.capacity = capacity;
+        this.hash = computeHashCode();
+        this.id = id;
+        if (id >= 0) {
+            this.registered = this;
+        }
     }
 
     /**
@@ -91,6 +123,23 @@ public class Corridor implements Comparable<Corridor> {
         return capacity;
     }
 
+    /**
+     * Returns the id of this traffic corridor, looking up the registered
+     * corridor equal to this one the first time it is called. Two corridors
+     * have the same id if and only if they are equal.
+     * 
+     * @return the id of this traffic corridor
+     */
+    int getId() {
+        // the registered corridor equal to this one
+        Corridor result = registered;
+        if (result == null) {
+            result = CorridorRegistry.intern(this);
+            registered = result;
+        }
+        return result.id;
+    }
+
     /**
      * <p>
      * This method returns a string of the form: <br>
@@ -127,16 +176,37 @@ public class Corridor implements Comparable<Corridor> {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (!(object instanceof Corridor)) {
             return false;
         }
         Corridor other = (Corridor) object; // the corridor to compare
-        return start.equals(other.start) && end.equals(other.end)
-                && capacity == other.capacity;
+        // the registered corridors equal to this one and the other, if known
+        Corridor first = registered;
+        Corridor second = other.registered;
+        if (first != null && second != null) {
+            // equal corridors share the same registered corridor
+            return first == second;
+        }
+        return hash == other.hash && capacity == other.capacity
+                && start.equals(other.start) && end.equals(other.end);
     }
 
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns the hash code of this corridor, computed from its start, end
+     * and capacity.
+     * 
+     * @require start != null && end != null
+     * @ensure Returns a hash code that is equal for equal corridors.
+     */
+    private int computeHashCode() {
         // We create a polynomial hash-code based on start, end and capacity.
         final int prime = 31; // an odd base prime
         int result = 1; // the hash code under construction
@@ -171,6 +241,11 @@ public class Corridor implements Comparable<Corridor> {
      */
     @Override
     public int compareTo(Corridor other) {
+        if (this == other || (registered != null
+                && registered == other.registered)) {
+            // equal corridors share the same registered corridor
+            return 0;
+        }
         int result = start.compareTo(other.start);
         if (result == 0) {
             result = end.compareTo(other.end);
@@ -194,8 +269,14 @@ public class Corridor implements Comparable<Corridor> {
      * @return true if this class is internally consistent, and false otherwise.
      */
     public boolean checkInvariant() {
+        // the registered corridor equal to this one, if known
+        Corridor other = registered;
         return (start != null && end != null && !start.equals(end)
-                && capacity > 0);
+                && capacity > 0 && (id >= 0) == (other == this)
+                && (other == null || (other.id >= 0
+                        && other.capacity == capacity
+                        && other.start.equals(start)
+                        && other.end.equals(end))));
     }
 
 }
@@ -0,0 +1,163 @@
+package planner;
+
+import java.lang.ref.*;
+import java.util.*;
+
+/**
+ * <p>
+ * A registry that gives each distinct traffic corridor a unique integer id.
+ * </p>
+ *
+ * <p>
+ * The registry holds one registered corridor for each distinct start, end and
+ * capacity, which it creates with the next unused id. Every corridor equal to
+ * it (according to the equals method of the Corridor class) shares that id,
+ * by keeping a reference to the registered corridor once it first needs its
+ * id (see Corridor.getId). This allows the Traffic class to record traffic in
+ * primitive arrays ordered by id, rather than in a map keyed by corridors.
+ * Code that creates many equal corridors (such as the VenueReader) can use
+ * getCorridor to share the registered corridor, rather than creating its own
+ * copies.
+ * </p>
+ *
+ * <p>
+ * The registry only holds weak references to the registered corridors, so a
+ * registered corridor is discarded once neither it nor any corridor sharing
+ * its id is in use. An equal corridor created after that is registered with
+ * a new id: ids are never reused, so no two corridors in use that are not
+ * equal can share an id.
+ * </p>
+ */
+final class CorridorRegistry {
+
+    // A mapping from the start, end and capacity of each registered corridor
+    // to a weak reference to it
+    private static final Map<Key, Entry> corridors = new HashMap<>();
+    // The references to registered corridors that have been discarded
+    private static final ReferenceQueue<Corridor> discarded =
+            new ReferenceQueue<>();
+    // The id to give to the next corridor registered
+    private static int nextId = 0;
+
+    /*
+     * invariant:
+     *
+     * for each key in corridors.keySet(), corridors.get(key).key == key, and
+     * corridors.get(key).get() is either null or a corridor with id less than
+     * nextId, and the start, end and capacity of key
+     */
+
+    /**
+     * This class only provides static methods.
+     */
+    private CorridorRegistry() {
+    }
+
+    /**
+     * Returns the registered corridor with the given start and end locations
+     * and capacity, registering a new corridor with the next unused id if
+     * there is none.
+     *
+     * @require start != null && end != null && !start.equals(end) &&
+     *          capacity > 0
+     * @ensure Returns the registered corridor with the given start and end
+     *         locations and capacity.
+     */
+    static synchronized Corridor getCorridor(Location start, Location end,
+            int capacity) {
+        removeDiscarded();
+        // the key for the corridor
+        Key key = new Key(start, end, capacity);
+        Entry entry = corridors.get(key);
+        Corridor corridor = (entry == null ? null : entry.get());
+        if (corridor == null) {
+            corridor = new Corridor(start, end, capacity, nextId++);
+            corridors.put(key, new Entry(key, corridor, discarded));
+        }
+        return corridor;
+    }
+
+    /**
+     * Returns the registered corridor that is equal to the given corridor,
+     * registering a new corridor if there is none.
+     *
+     * @require corridor != null
+     * @ensure Returns the registered corridor that is equal to the given
+     *         corridor.
+     */
+    static Corridor intern(Corridor corridor) {
+        return getCorridor(corridor.getStart(), corridor.getEnd(), corridor
+                .getCapacity());
+    }
+
+    /**
+     * Removes the entries of the registered corridors that have been
+     * discarded.
+     */
+    private static void removeDiscarded() {
+        // the next reference to a discarded corridor
+        Reference<? extends Corridor> reference;
+        while ((reference = discarded.poll()) != null) {
+            Entry entry = (Entry) reference;
+            // the entry may have been replaced by a newer registration
+            corridors.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * A weak reference to a registered corridor, that remembers its key.
+     */
+    private static final class Entry extends WeakReference<Corridor> {
+
+        // the key of the registered corridor
+        private final Key key;
+
+        /**
+         * Creates a weak reference to the given corridor, with the given key,
+         * that is added to queue once the corridor is discarded.
+         */
+        Entry(Key key, Corridor corridor, ReferenceQueue<Corridor> queue) {
+            super(corridor, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * A start location, end location and capacity, identifying one
+     * registered corridor.
+     */
+    private static final class Key {
+
+        // the start location of the corridor
+        private final Location start;
+        // the end location of the corridor
+        private final Location end;
+        // the capacity of the corridor
+        private final int capacity;
+
+        /**
+         * Creates a key for the given start, end and capacity.
+         */
+        Key(Location start, Location end, int capacity) {
+            this.start = start;
+            this.end = end;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object; // the key to compare
+            return capacity == other.capacity && start.equals(other.start)
+                    && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * start.hashCode() + end.hashCode()) + capacity;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package planner;
+
+/**
+ * <p>
+ * A measure of how much of a list of events an allocation covers, for use
+ * when not every event can be allocated (see Allocator.findMaximumCoverage).
+ * </p>
+ *
+ * <p>
+ * The coverage of an allocation is the sum of the weights of the events that
+ * it allocates.
+ * </p>
+ */
+public interface CoverageObjective {
+
+    /**
+     * Counts the events allocated: every event has weight one.
+     */
+    CoverageObjective EVENT_COUNT = event -> 1;
+
+    /**
+     * Adds up the sizes of the events allocated: each event is weighted by its
+     * size, so that one large event counts for more than a small one.
+     */
+    CoverageObjective TOTAL_SIZE = event -> event.getSize();
+
+    /**
+     * Returns the weight of the given event: the amount that allocating it
+     * adds to the coverage of an allocation.
+     *
+     * @param event
+     *            the event to weigh
+     * @return the weight of the event
+     * @require event != null
+     * @ensure \result >= 0
+     */
+    long weight(Event event);
+
+}
@@ -0,0 +1,343 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A branch-and-bound search for a safe allocation of some of the events to
+ * venues that maximises the coverage of the events (see CoverageObjective),
+ * for use when there is no safe allocation of every event.
+ * </p>
+ *
+ * <p>
+ * The search considers the events one at a time, heaviest first, and either
+ * allocates the next event to an available venue, keeping the traffic safe,
+ * or leaves it out. Since adding traffic never makes a venue safe again, an
+ * event can only be placed at a venue in an extension of the current partial
+ * allocation if the venue is available, can host the event, and its traffic
+ * for the event is safe when added to the current traffic. The events placed
+ * in any extension must be matched to distinct such venues, so its coverage
+ * is at most the current coverage plus the greatest total weight of the
+ * remaining events that can be matched to distinct venues in this way
+ * (ignoring the traffic that they cause together). A branch is abandoned as
+ * soon as this bound is no better than the best allocation found so far.
+ * </p>
+ *
+ * <p>
+ * The bound is computed by considering the remaining events heaviest first,
+ * and keeping each one that can be added to the matching found so far by an
+ * augmenting path. (The sets of events that can be matched form a matroid,
+ * so this greedy choice finds the heaviest such set.)
+ * </p>
+ *
+ * <p>
+ * Placing an event is tried before leaving it out, and the venues for each
+ * event are tried in the order chosen by VenueOrdering.LEAST_PRESSURE_FIRST,
+ * so that good allocations are found early and the bound prunes as much as
+ * possible.
+ * </p>
+ *
+ * <p>
+ * Proving that no better allocation exists can take far longer than finding
+ * the best allocation, so a search may be given a time and node budget (see
+ * findResult), and stops when it is spent with the best allocation found so
+ * far.
+ * </p>
+ */
+final class CoverageSearch {
+
+    // the events to be allocated, in the order they are considered
+    private final Event[] events;
+    // weight[e] is the weight of events[e], so that weight is non-increasing
+    private final long[] weight;
+    // the venues that events may be allocated to
+    private final Venue[] venues;
+    /*
+     * order[e] holds the indices (into venues) of the venues that can host
+     * events[e], in the order that they should be tried
+     */
+    private final int[][] order;
+    /*
+     * capable[e] is the set (see VenueSet) of the venues that can host
+     * events[e]
+     */
+    private final long[][] capable;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event
+     */
+    private final Traffic[][] eventTraffic;
+
+    // the traffic caused by the current partial allocation
+    private Traffic traffic;
+    // the venue allocated to each event, or -1 if it is not allocated
+    private int[] assigned;
+    // the venues that have not been allocated an event
+    private long[] available;
+    // the best allocation found so far (in the same form as assigned)
+    private int[] best;
+    // the coverage of the best allocation found so far
+    private long bestCoverage;
+    // the statistics kept by the last search (see SearchStatistics)
+    private long nodeCount;
+    private long trafficCuts;
+    private int maxDepth;
+    // the statistics of the last search, or null if there has been none
+    private SearchStatistics statistics;
+    // the limits of the last search
+    private SearchBudget budget;
+    // true if the last search stopped because it spent its budget
+    private boolean stopped;
+
+    /*
+     * Scratch space for bound: usable[e] is the set of venues that events[e]
+     * could still be placed at, matchedEvent[v] is the event matched to
+     * venues[v] (or -1), and visited is the set of venues visited by the
+     * current search for an augmenting path.
+     */
+    private final long[][] usable;
+    private final int[] matchedEvent;
+    private final long[] visited;
+
+    /*
+     * invariant:
+     *
+     * events != null && weight != null && venues != null && order != null &&
+     * capable != null && eventTraffic != null &&
+     *
+     * for each e and v, VenueSet.contains(capable[e], v) iff
+     * venues[v].canHost(events[e]) iff eventTraffic[e][v] != null &&
+     *
+     * for each e, order[e] holds each v with VenueSet.contains(capable[e], v)
+     * exactly once &&
+     *
+     * for each 0 < e < events.length, weight[e - 1] >= weight[e] &&
+     *
+     * nodeCount >= 0 && trafficCuts >= 0 && maxDepth >= 0
+     */
+
+    /**
+     * Creates a search for the safe allocation of some of the given events to
+     * the given venues that maximises the given objective.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          objective != null
+     */
+    CoverageSearch(List<Event> events, List<Venue> venues,
+            CoverageObjective objective) {
+        // heaviest first, and events of equal weight with the fewest venues
+        // first (the sort is stable)
+        List<Event> ordered = EventOrdering.FEWEST_VENUES_FIRST.order(events,
+                venues);
+        ordered.sort((e1, e2) -> Long.compare(objective.weight(e2), objective
+                .weight(e1)));
+        this.events = ordered.toArray(new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        weight = new long[this.events.length];
+        usable = new long[this.events.length][];
+        matchedEvent = new int[this.venues.length];
+        visited = VenueSet.empty(this.venues.length);
+
+        eventTraffic = AllocationSearch.findEventTraffic(this.events,
+                this.venues);
+        capable = AllocationSearch.findCapableVenues(eventTraffic,
+                this.venues.length);
+        order = AllocationSearch.orderVenues(this.events, this.venues,
+                VenueOrdering.LEAST_PRESSURE_FIRST);
+        for (int e = 0; e < this.events.length; e++) {
+            weight[e] = objective.weight(this.events[e]);
+            usable[e] = VenueSet.empty(this.venues.length);
+            // the venues that cannot host the event are ordered last: drop them
+            order[e] = Arrays.copyOf(order[e], VenueSet.size(capable[e]));
+        }
+    }
+
+    /**
+     * Returns a safe allocation of some of the events to the venues with the
+     * greatest coverage. (If several allocations have the greatest coverage,
+     * one of them is returned; if no event can be allocated, the allocation is
+     * empty.)
+     *
+     * @ensure Returns a safe allocation of some of the events to distinct
+     *         venues, whose coverage is no less than that of any other such
+     *         allocation.
+     */
+    Map<Event, Venue> findAllocation() {
+        run(new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE));
+        return bestAllocation();
+    }
+
+    /**
+     * Searches for a safe allocation of some of the events with the greatest
+     * coverage, as findAllocation does, but stops if the search runs for
+     * longer than timeLimitMillis milliseconds, or would visit more than
+     * nodeLimit nodes. The result is complete if the search finished, so that
+     * its allocation has the greatest coverage; otherwise its allocation is
+     * the safe allocation with the greatest coverage found before the search
+     * stopped.
+     *
+     * @require timeLimitMillis >= 0 && nodeLimit >= 0
+     */
+    SearchResult findResult(long timeLimitMillis, long nodeLimit) {
+        run(new SearchBudget(timeLimitMillis, nodeLimit));
+        return new SearchResult(bestAllocation(), statistics, !stopped);
+    }
+
+    /**
+     * Runs a search within the given budget, recording its statistics.
+     *
+     * @require budget != null
+     * @ensure best is the allocation with the greatest coverage found, and
+     *         stopped is true iff the search spent its budget
+     */
+    private void run(SearchBudget budget) {
+        this.budget = budget;
+        stopped = false;
+        traffic = new Traffic();
+        assigned = new int[events.length];
+        Arrays.fill(assigned, -1);
+        available = VenueSet.full(venues.length);
+        best = assigned.clone();
+        bestCoverage = 0;
+        nodeCount = 0;
+        trafficCuts = 0;
+        maxDepth = 0;
+        search(0, 0);
+        statistics = new SearchStatistics(nodeCount, 0, trafficCuts, 0, 0,
+                maxDepth, budget.elapsed());
+    }
+
+    /**
+     * Returns the best allocation found by the last search, as a new map.
+     */
+    private Map<Event, Venue> bestAllocation() {
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int e = 0; e < events.length; e++) {
+            if (best[e] >= 0) {
+                allocation.put(events[e], venues[best[e]]);
+            }
+        }
+        return allocation;
+    }
+
+    /**
+     * Searches for allocations that extend the current partial allocation of
+     * the first index events and have a greater coverage than the best
+     * allocation found so far, recording any that are found.
+     *
+     * @require 0 <= index <= events.length && assigned[0 .. index - 1]
+     *          allocates some of the first index events to distinct venues
+     *          that can host them, and assigned[e] == -1 for each e >= index
+     *          && available is the set of venues not in assigned && traffic
+     *          is the (safe) traffic caused by that partial allocation &&
+     *          coverage is its coverage
+     * @ensure assigned, available and traffic are the same as they were when
+     *         this method was called.
+     */
+    private void search(int index, long coverage) {
+        if (budget.isSpent(nodeCount)) {
+            stopped = true;
+            return;
+        }
+        nodeCount++;
+        maxDepth = Math.max(maxDepth, index);
+        if (coverage > bestCoverage) {
+            best = assigned.clone();
+            bestCoverage = coverage;
+        }
+        /* BOUND: stop if no extension can beat the best allocation */
+        if (index == events.length || bound(index, coverage) <= bestCoverage) {
+            return;
+        }
+
+        /* BRANCH: place the next event at each venue, then leave it out */
+        for (int v : order[index]) {
+            if (!VenueSet.contains(available, v)) {
+                continue;
+            }
+            Traffic extraTraffic = eventTraffic[index][v];
+            if (traffic.addAndCheckSafe(extraTraffic)) {
+                VenueSet.remove(available, v);
+                assigned[index] = v;
+                search(index + 1, coverage + weight[index]);
+                assigned[index] = -1;
+                VenueSet.add(available, v);
+            } else {
+                trafficCuts++;
+            }
+            traffic.removeTraffic(extraTraffic);
+            if (stopped) {
+                return;
+            }
+        }
+        search(index + 1, coverage);
+    }
+
+    /**
+     * Returns an upper bound on the coverage of any extension of the current
+     * partial allocation of the first index events: the current coverage,
+     * plus the greatest total weight of the events from index onwards that
+     * can be matched to distinct available venues that they could still be
+     * placed at.
+     *
+     * @require 0 <= index < events.length && coverage is the coverage of the
+     *          current partial allocation
+     */
+    private long bound(int index, long coverage) {
+        Arrays.fill(matchedEvent, -1);
+        long bound = coverage;
+        for (int e = index; e < events.length; e++) {
+            findUsableVenues(e);
+            Arrays.fill(visited, 0);
+            if (augment(e)) {
+                bound += weight[e];
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Sets usable[e] to the set of available venues that can host events[e]
+     * without making the current traffic unsafe.
+     */
+    private void findUsableVenues(int e) {
+        long[] venuesLeft = usable[e];
+        Arrays.fill(venuesLeft, 0);
+        for (int v = VenueSet.next(capable[e], 0); v >= 0; v = VenueSet.next(
+                capable[e], v + 1)) {
+            if (VenueSet.contains(available, v) && traffic.isSafeWith(
+                    eventTraffic[e][v])) {
+                VenueSet.add(venuesLeft, v);
+            }
+        }
+    }
+
+    /**
+     * Tries to match events[e] to one of its usable venues, re-matching other
+     * events along an augmenting path if necessary, and returns true if this
+     * succeeds.
+     *
+     * @require usable[e] is up to date && matchedEvent is a matching of
+     *          events to their usable venues
+     * @ensure If true is returned, matchedEvent is a matching that includes
+     *         events[e] and every event it previously included; otherwise
+     *         matchedEvent is unchanged.
+     */
+    private boolean augment(int e) {
+        for (int v = VenueSet.next(usable[e], 0); v >= 0; v = VenueSet.next(
+                usable[e], v + 1)) {
+            if (VenueSet.contains(visited, v)) {
+                continue;
+            }
+            VenueSet.add(visited, v);
+            if (matchedEvent[v] < 0 || augment(matchedEvent[v])) {
+                matchedEvent[v] = e;
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,77 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A strategy for choosing the order in which a search allocates events to
+ * venues.
+ * </p>
+ *
+ * <p>
+ * The order does not change which allocations are safe, but it can change the
+ * size of the search tree by orders of magnitude: allocating the hardest
+ * events first means that dead ends are found near the root of the tree,
+ * rather than after every easier event has been placed.
+ * </p>
+ */
+public interface EventOrdering {
+
+    /**
+     * Allocates the events in the order in which they are given.
+     */
+    EventOrdering GIVEN = (events, venues) -> new ArrayList<>(events);
+
+    /**
+     * Allocates the largest events first (events of equal size are allocated
+     * in the order in which they are given). Large events can be hosted at
+     * fewer venues, and generate more traffic.
+     */
+    EventOrdering LARGEST_FIRST = (events, venues) -> {
+        List<Event> result = new ArrayList<>(events);
+        result.sort((e1, e2) -> Integer.compare(e2.getSize(), e1.getSize()));
+        return result;
+    };
+
+    /**
+     * Allocates the events that can be hosted at the fewest venues first
+     * (ties are broken by allocating larger events first, and then by the
+     * order in which the events are given).
+     */
+    EventOrdering FEWEST_VENUES_FIRST = (events, venues) -> {
+        // the number of venues that can host each event
+        Map<Event, Integer> capableVenues = new HashMap<>();
+        for (Event event : events) {
+            int count = 0;
+            for (Venue venue : venues) {
+                if (venue.canHost(event)) {
+                    count++;
+                }
+            }
+            capableVenues.put(event, count);
+        }
+        List<Event> result = new ArrayList<>(events);
+        result.sort((e1, e2) -> {
+            int order = Integer.compare(capableVenues.get(e1), capableVenues
+                    .get(e2));
+            return (order != 0 ? order : Integer.compare(e2.getSize(), e1
+                    .getSize()));
+        });
+        return result;
+    };
+
+    /**
+     * Returns the given events in the order in which they should be allocated.
+     *
+     * @param events
+     *            the events to be allocated
+     * @param venues
+     *            the venues that the events may be allocated to
+     * @return a new list containing each of the given events exactly once, in
+     *         the order in which they should be allocated
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null)
+     */
+    List<Event> order(List<Event> events, List<Venue> venues);
+
+}
@@ -0,0 +1,238 @@
+package planner;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * <p>
+ * Splits a range of a char array into tokens separated by a two-character
+ * delimiter (such as ": " or ", "), without creating any objects.
+ * </p>
+ *
+ * <p>
+ * The tokens are exactly those that a java.util.Scanner over the same text
+ * would return with useDelimiter(delimiter): at most one delimiter is skipped
+ * before each token, so two adjacent delimiters enclose an empty token, and
+ * a token runs up to (but not including) the next delimiter or the end of
+ * the range. Integers are recognised as by Scanner.hasNextInt in the default
+ * locale for formatting: an optional sign followed by decimal digits, which
+ * may be grouped in threes by the locale's grouping separator (e.g. ',' in
+ * English), with a value that fits in an int.
+ * </p>
+ *
+ * <p>
+ * A scanner can be reset to scan a new range, so that one scanner can be
+ * used for every line of a file.
+ * </p>
+ */
+final class FieldScanner {
+
+    // the first and second characters of the delimiter
+    private final char first;
+    private final char second;
+    // the grouping separator of the default locale for formatting
+    private final char groupingSeparator;
+
+    // the chars being scanned, in chars[position .. end - 1]
+    private char[] chars;
+    private int position;
+    private int end;
+
+    // the last token consumed, in chars[tokenStart .. tokenEnd - 1]
+    private int tokenStart;
+    private int tokenEnd;
+
+    /*
+     * invariant:
+     *
+     * 0 <= tokenStart <= tokenEnd <= position <= end && (chars == null || end
+     * <= chars.length)
+     */
+
+    /**
+     * Creates a scanner that splits tokens at the given delimiter. The scanner
+     * has no tokens until it is reset, and groups the digits of integers as
+     * the default locale for formatting does when it is created.
+     *
+     * @require delimiter != null && delimiter.length() == 2
+     */
+    FieldScanner(String delimiter) {
+        this.first = delimiter.charAt(0);
+        this.second = delimiter.charAt(1);
+        this.groupingSeparator = DecimalFormatSymbols.getInstance()
+                .getGroupingSeparator();
+    }
+
+    /**
+     * Resets this scanner to scan the tokens in chars[start .. end - 1].
+     *
+     * @require chars != null && 0 <= start <= end <= chars.length
+     */
+    void reset(char[] chars, int start, int end) {
+        this.chars = chars;
+        this.position = start;
+        this.end = end;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+    }
+
+    /**
+     * Returns true if there is another token.
+     */
+    boolean hasNext() {
+        return skipDelimiter() < end;
+    }
+
+    /**
+     * Consumes the next token, whose bounds are then available from
+     * getTokenStart and getTokenEnd.
+     *
+     * @require hasNext()
+     */
+    void next() {
+        tokenStart = skipDelimiter();
+        tokenEnd = findDelimiter(tokenStart);
+        position = tokenEnd;
+    }
+
+    /**
+     * Consumes the next token and returns it as a new String.
+     *
+     * @require hasNext()
+     */
+    String nextString() {
+        next();
+        return new String(chars, tokenStart, tokenEnd - tokenStart);
+    }
+
+    /**
+     * Returns true if there is another token, and it is an integer in the
+     * range of an int.
+     */
+    boolean hasNextInt() {
+        if (!hasNext()) {
+            return false;
+        }
+        // the bounds of the next token
+        int start = skipDelimiter();
+        return isInt(start, findDelimiter(start));
+    }
+
+    /**
+     * Consumes the next token and returns the integer that it denotes.
+     *
+     * @require hasNextInt()
+     */
+    int nextInt() {
+        next();
+        return (int) parse(tokenStart, tokenEnd);
+    }
+
+    /**
+     * Returns the array being scanned.
+     */
+    char[] getLine() {
+        return chars;
+    }
+
+    /**
+     * Returns the index in the scanned array of the first char of the last
+     * token consumed.
+     */
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the index in the scanned array just past the last char of the
+     * last token consumed.
+     */
+    int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * Returns the position after skipping one delimiter, if there is a
+     * delimiter at the current position, or the current position otherwise.
+     */
+    private int skipDelimiter() {
+        if (position + 1 < end && chars[position] == first
+                && chars[position + 1] == second) {
+            return position + 2;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the index of the first delimiter at or after from, or end if
+     * there is no such delimiter.
+     *
+     * @require position <= from <= end
+     */
+    private int findDelimiter(int from) {
+        for (int i = from; i + 1 < end; i++) {
+            if (chars[i] == first && chars[i + 1] == second) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns true if chars[start .. end - 1] denotes an integer in the range
+     * of an int.
+     */
+    private boolean isInt(int start, int end) {
+        // the position just after the sign, if there is one
+        int digits = start;
+        if (digits < end && (chars[digits] == '+' || chars[digits] == '-')) {
+            digits++;
+        }
+        if (digits == end) {
+            return false;
+        }
+        // the number of digits in each group, and whether there are groups
+        int run = 0;
+        boolean grouped = false;
+        for (int i = digits; i < end; i++) {
+            if (Character.isDigit(chars[i])) {
+                run++;
+            } else if (chars[i] == groupingSeparator && (grouped ? run == 3
+                    : (run >= 1 && run <= 3 && chars[digits] != '0'))) {
+                grouped = true;
+                run = 0;
+            } else {
+                return false;
+            }
+        }
+        if (grouped && run != 3) {
+            return false;
+        }
+        // the value denoted by the token
+        long value = parse(start, end);
+        return Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the value of the integer denoted by chars[start .. end - 1],
+     * ignoring group separators, or a value outside the range of an int if
+     * the integer is too large in magnitude to fit in an int.
+     *
+     * @require chars[start .. end - 1] is an optional sign followed by digits
+     *          and group separators
+     */
+    private long parse(int start, int end) {
+        boolean negative = (chars[start] == '-');
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            if (Character.isDigit(chars[i])) {
+                value = 10 * value + Character.digit(chars[i], 10);
+                if (value > 1L + Integer.MAX_VALUE) {
+                    // the integer is out of range: stop before overflowing
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+        return negative ? -value : value;
+    }
+
+}
@@ -0,0 +1,214 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A constraint-propagation search for a safe allocation of events to venues,
+ * that uses forward checking.
+ * </p>
+ *
+ * <p>
+ * The search keeps a domain for each unallocated event: the set of venues
+ * that it could still be allocated to. Initially the domain of an event holds
+ * each venue that can host it, and whose traffic for the event is safe on its
+ * own. Each time an event is allocated to a venue, the domain of every
+ * unallocated event is shrunk by removing that venue, and every venue whose
+ * traffic for the event would no longer fit in the remaining capacity of the
+ * corridors. The search backtracks as soon as any domain becomes empty, rather
+ * than when it reaches the event with the empty domain.
+ * </p>
+ *
+ * <p>
+ * The next event to allocate is always the unallocated event with the
+ * smallest domain (the most constrained event), and the venues in its domain
+ * are tried in the order chosen by VenueOrdering.LEAST_PRESSURE_FIRST.
+ * </p>
+ */
+final class ForwardCheckingSearch {
+
+    // the events to be allocated
+    private final Event[] events;
+    // the venues that events may be allocated to
+    private final Venue[] venues;
+    /*
+     * order[e] holds the indices (into venues) of the venues to try for
+     * events[e], in the order that they should be tried
+     */
+    private final int[][] order;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event
+     */
+    private final Traffic[][] eventTraffic;
+    /*
+     * domains[d][e] is the domain (a set of venues, see VenueSet) of events[e]
+     * when d events have been allocated, for each unallocated event e
+     */
+    private final long[][][] domains;
+
+    // the traffic caused by the current partial allocation
+    private Traffic traffic;
+    // the venue (index) allocated to each event, or -1 if it is unallocated
+    private int[] assigned;
+
+    /*
+     * invariant:
+     *
+     * events != null && venues != null && order != null && eventTraffic !=
+     * null && domains != null && domains.length == events.length + 1 &&
+     *
+     * for each e and v, venues[v].canHost(events[e]) iff eventTraffic[e][v]
+     * != null
+     */
+
+    /**
+     * Creates a search for a safe allocation of the given events to the given
+     * venues.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     */
+    ForwardCheckingSearch(List<Event> events, List<Venue> venues) {
+        this.events = events.toArray(new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        order = AllocationSearch.orderVenues(this.events, this.venues,
+                VenueOrdering.LEAST_PRESSURE_FIRST);
+        eventTraffic = AllocationSearch.findEventTraffic(this.events,
+                this.venues);
+        domains = new long[this.events.length + 1][this.events.length][];
+        for (int d = 0; d <= this.events.length; d++) {
+            for (int e = 0; e < this.events.length; e++) {
+                domains[d][e] = VenueSet.empty(this.venues.length);
+            }
+        }
+    }
+
+    /**
+     * Returns a safe allocation of the events to the venues, if there is at
+     * least one possible safe allocation, or null otherwise.
+     *
+     * @ensure Returns a safe allocation of the events to the venues, if there
+     *         is at least one possible safe allocation, or null otherwise.
+     */
+    Map<Event, Venue> findAllocation() {
+        traffic = new Traffic();
+        assigned = new int[events.length];
+        Arrays.fill(assigned, -1);
+        if (!initialiseDomains() || !search(0)) {
+            return null;
+        }
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int e = 0; e < events.length; e++) {
+            allocation.put(events[e], venues[assigned[e]]);
+        }
+        return allocation;
+    }
+
+    /**
+     * Sets the domain of each event, before any event is allocated, to the
+     * venues that can host it with safe traffic, returning false if any
+     * domain is empty.
+     */
+    private boolean initialiseDomains() {
+        for (int e = 0; e < events.length; e++) {
+            long[] domain = domains[0][e];
+            Arrays.fill(domain, 0);
+            for (int v = 0; v < venues.length; v++) {
+                if (eventTraffic[e][v] != null && eventTraffic[e][v].isSafe()) {
+                    VenueSet.add(domain, v);
+                }
+            }
+            if (VenueSet.size(domain) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extends the current partial allocation of depth events to a safe
+     * allocation of all of the events, returning true if this is possible,
+     * and false otherwise.
+     *
+     * @require 0 <= depth <= events.length && exactly depth events are
+     *          allocated (to distinct venues that can host them) in assigned
+     *          && traffic is the (safe) traffic caused by that partial
+     *          allocation && domains[depth][e] is the non-empty domain of
+     *          each unallocated event e
+     * @ensure If true is returned, then assigned is a safe allocation of all
+     *         of the events; otherwise assigned and traffic are the same as
+     *         they were when this method was called.
+     */
+    private boolean search(int depth) {
+        /* BASE CASE: no more events to allocate */
+        if (depth == events.length) {
+            return true;
+        }
+
+        /* RECURSIVE CASE: allocate the most constrained event */
+        int event = -1; // the unallocated event with the smallest domain
+        int smallest = Integer.MAX_VALUE; // the size of its domain
+        for (int e = 0; e < events.length; e++) {
+            if (assigned[e] < 0) {
+                int size = VenueSet.size(domains[depth][e]);
+                if (size < smallest) {
+                    event = e;
+                    smallest = size;
+                }
+            }
+        }
+        long[] domain = domains[depth][event];
+        for (int v : order[event]) {
+            if (!VenueSet.contains(domain, v)) {
+                continue;
+            }
+            // the venue is in the domain, so the traffic stays safe
+            traffic.addTraffic(eventTraffic[event][v]);
+            assigned[event] = v;
+            if (propagate(depth, event, v) && search(depth + 1)) {
+                return true;
+            }
+            assigned[event] = -1;
+            traffic.removeTraffic(eventTraffic[event][v]);
+        }
+        return false;
+    }
+
+    /**
+     * Computes the domains of the unallocated events after event has been
+     * allocated to venue v, returning false if any of them is empty.
+     *
+     * @require event has just been allocated to venue v in assigned and
+     *          traffic, which were consistent with domains[depth]
+     * @ensure domains[depth + 1][e] is domains[depth][e] without venue v and
+     *         without each venue whose traffic for events[e] is not safe when
+     *         added to traffic, for each unallocated event e; and returns
+     *         true iff none of these domains is empty.
+     */
+    private boolean propagate(int depth, int event, int v) {
+        for (int e = 0; e < events.length; e++) {
+            if (assigned[e] >= 0) {
+                continue;
+            }
+            long[] domain = domains[depth + 1][e];
+            System.arraycopy(domains[depth][e], 0, domain, 0, domain.length);
+            VenueSet.remove(domain, v);
+            boolean empty = true; // whether the domain is now empty
+            for (int w = VenueSet.next(domain, 0); w >= 0; w = VenueSet.next(
+                    domain, w + 1)) {
+                if (traffic.isSafeWith(eventTraffic[e][w])) {
+                    empty = false;
+                } else {
+                    VenueSet.remove(domain, w);
+                }
+            }
+            if (empty) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
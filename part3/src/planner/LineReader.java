@@ -0,0 +1,224 @@
+package planner;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Reads a text file one line at a time, through a FileChannel and a pair of
+ * reusable buffers.
+ * </p>
+ *
+ * <p>
+ * Each line read is left in a char array owned by the reader, rather than in
+ * a new String, so that callers can tokenize it without creating any objects.
+ * The array is overwritten by the next call to nextLine.
+ * </p>
+ *
+ * <p>
+ * The file is decoded using the default charset, with malformed input
+ * replaced, and lines are terminated in the same way as by
+ * java.util.Scanner.nextLine: by "\r\n", or by any one of '\n', '\r',
+ * '\u2028', '\u2029' or '\u0085'. If the file does not end with a line
+ * terminator, then the text after the last terminator is the last line.
+ * </p>
+ */
+final class LineReader implements Closeable {
+
+    // the number of bytes (and chars) read from the file at a time
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // the file being read
+    private final FileChannel channel;
+    // the decoder from the bytes of the file to chars
+    private final CharsetDecoder decoder;
+    // bytes read from the file that have not been decoded yet
+    private final ByteBuffer bytes;
+    // true iff the end of the file has been reached
+    private boolean endOfFile;
+    // true iff every byte of the file has been decoded
+    private boolean decoded;
+
+    // chars decoded from the file; buffer[position .. limit - 1] are unread
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    // the last line read, in line[0 .. length - 1]
+    private char[] line;
+    private int length;
+    // the number of lines that have been read
+    private int lineNumber;
+
+    /*
+     * invariant:
+     *
+     * 0 <= position <= limit <= buffer.length &&
+     *
+     * 0 <= length <= line.length && lineNumber >= 0 &&
+     *
+     * (decoded ==> endOfFile)
+     */
+
+    /**
+     * Opens the file with the given name for reading.
+     *
+     * @param fileName
+     *            the name of the file to read
+     * @throws IOException
+     *             if the file cannot be opened
+     */
+    LineReader(String fileName) throws IOException {
+        channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ);
+        decoder = Charset.defaultCharset().newDecoder().onMalformedInput(
+                CodingErrorAction.REPLACE).onUnmappableCharacter(
+                        CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        bytes.flip(); // there are no bytes to decode yet
+        buffer = new char[BUFFER_SIZE];
+        line = new char[128];
+    }
+
+    /**
+     * Returns true if there is another line to read.
+     *
+     * @return true iff there is another line in the file
+     * @throws IOException
+     *             if there is an error reading from the file
+     */
+    boolean hasNextLine() throws IOException {
+        return position < limit || fill();
+    }
+
+    /**
+     * Reads the next line, which is then available from getLine and
+     * getLength.
+     *
+     * @require hasNextLine()
+     * @ensure getLine()[0 .. getLength() - 1] holds the next line, without
+     *         its terminator, and getLineNumber() is one greater than before.
+     * @throws IOException
+     *             if there is an error reading from the file
+     */
+    void nextLine() throws IOException {
+        length = 0;
+        lineNumber++;
+        while (position < limit || fill()) {
+            // the position of the first unread char of the line
+            int start = position;
+            while (position < limit && !isTerminator(buffer[position])) {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                // the line is terminated within the buffer
+                char terminator = buffer[position++];
+                if (terminator == '\r' && (position < limit || fill())
+                        && buffer[position] == '\n') {
+                    position++;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the array holding the last line read. Only the first getLength()
+     * chars of the array belong to the line.
+     *
+     * @return the array holding the last line read
+     */
+    char[] getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the number of chars in the last line read.
+     *
+     * @return the length of the last line read
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the last line read, as a new String.
+     *
+     * @return the last line read
+     */
+    String getLineString() {
+        return new String(line, 0, length);
+    }
+
+    /**
+     * Returns the number of lines that have been read (i.e. the line number of
+     * the last line read, counting from one).
+     *
+     * @return the number of lines read
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns true if c terminates a line.
+     */
+    private static boolean isTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029'
+                || c == '\u0085';
+    }
+
+    /**
+     * Appends buffer[from .. to - 1] to the current line.
+     *
+     * @require 0 <= from <= to <= limit
+     */
+    private void append(int from, int to) {
+        if (length + to - from > line.length) {
+            line = Arrays.copyOf(line, Math.max(2 * line.length,
+                    length + to - from));
+        }
+        System.arraycopy(buffer, from, line, length, to - from);
+        length += to - from;
+    }
+
+    /**
+     * Decodes more of the file into the buffer, returning true if there are
+     * any unread chars afterwards.
+     *
+     * @require position == limit
+     * @ensure Returns true iff position < limit.
+     * @throws IOException
+     *             if there is an error reading from the file
+     */
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        while (chars.position() == 0 && !decoded) {
+            if (!endOfFile) {
+                bytes.compact();
+                endOfFile = (channel.read(bytes) < 0);
+                bytes.flip();
+            }
+            CoderResult result = decoder.decode(bytes, chars, endOfFile);
+            if (endOfFile && result.isUnderflow()
+                    && decoder.flush(chars).isUnderflow()) {
+                decoded = true;
+            }
+        }
+        limit = chars.position();
+        return position < limit;
+    }
+
+}
@@ -0,0 +1,86 @@
+package planner;
+
+/**
+ * <p>
+ * An immutable ratio of the traffic on a corridor to the capacity of that
+ * corridor (its load).
+ * </p>
+ *
+ * <p>
+ * Ratios are compared exactly, by cross-multiplication, rather than by
+ * dividing, so that loads that are equal as fractions always compare as
+ * equal.
+ * </p>
+ */
+final class LoadRatio implements Comparable<LoadRatio> {
+
+    // the load of a corridor without traffic
+    static final LoadRatio ZERO = new LoadRatio(0, 1);
+
+    // the traffic on the corridor
+    private final int traffic;
+    // the capacity of the corridor
+    private final int capacity;
+
+    /* invariant: traffic >= 0 && capacity > 0 */
+
+    /**
+     * Creates the load of a corridor with the given capacity that carries the
+     * given amount of traffic.
+     *
+     * @require traffic >= 0 && capacity > 0
+     */
+    LoadRatio(int traffic, int capacity) {
+        this.traffic = traffic;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns true if this load is at most one (i.e. the traffic does not
+     * exceed the capacity).
+     */
+    boolean isSafe() {
+        return traffic <= capacity;
+    }
+
+    /**
+     * Returns the greater of this load and the given load.
+     *
+     * @require other != null
+     */
+    LoadRatio max(LoadRatio other) {
+        return (compareTo(other) >= 0 ? this : other);
+    }
+
+    /**
+     * Returns the load as a (rounded) floating-point number.
+     */
+    double doubleValue() {
+        return (double) traffic / capacity;
+    }
+
+    @Override
+    public int compareTo(LoadRatio other) {
+        return Long.compare((long) traffic * other.capacity,
+                (long) other.traffic * capacity);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof LoadRatio)) {
+            return false;
+        }
+        return compareTo((LoadRatio) object) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(doubleValue());
+    }
+
+    @Override
+    public String toString() {
+        return traffic + "/" + capacity;
+    }
+
+}
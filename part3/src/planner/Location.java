@@ -8,7 +8,9 @@ public class Location implements Comparable<Location> {
 
     // the name of the location
     private String name;
-    /* invariant: name != null */
+    // the hash code of the location, computed once on construction
+    private int hash;
+    /* invariant: name != null && hash == name.hashCode() */
 
     /**
      * Creates a new location with the given name.
@@ -23,6 +25,7 @@ public class Location implements Comparable<Location> {
             throw new NullPointerException("Location name cannot be null.");
         }
         this.name = name;
+        this.hash = name.hashCode();
     }
 
     /**
@@ -46,16 +49,19 @@ public class Location implements Comparable<Location> {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (!(object instanceof Location)) {
             return false;
         }
         Location other = (Location) object; // the location to compare
-        return name.equals(other.name);
+        return hash == other.hash && name.equals(other.name);
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return hash;
     }
 
     /**
@@ -71,7 +77,7 @@ public class Location implements Comparable<Location> {
      * @return true if this class is internally consistent, and false otherwise.
      */
     public boolean checkInvariant() {
-        return name != null;
+        return name != null && hash == name.hashCode();
     }
 
     /**
@@ -79,6 +85,9 @@ public class Location implements Comparable<Location> {
      */
     @Override
     public int compareTo(Location other) {
+        if (this == other) {
+            return 0;
+        }
         return name.compareTo(other.name);
     }
 
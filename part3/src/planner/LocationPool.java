@@ -0,0 +1,97 @@
+package planner;
+
+import java.lang.ref.*;
+import java.util.*;
+
+/**
+ * <p>
+ * A pool of canonical locations, one for each distinct location name.
+ * </p>
+ *
+ * <p>
+ * Locations are immutable, so equal locations can be shared. Sharing them
+ * means that a file naming the same location many times only holds one copy
+ * of it, and that comparisons between shared locations succeed on identity
+ * without comparing their names.
+ * </p>
+ *
+ * <p>
+ * The pool only holds weak references to the canonical locations, so a
+ * canonical location is discarded once it is no longer in use (e.g. by a
+ * corridor), and a new one is created if its name is interned again.
+ * </p>
+ */
+final class LocationPool {
+
+    // A mapping from location names to weak references to their canonical
+    // location
+    private static final Map<String, Entry> locations = new HashMap<>();
+    // The references to canonical locations that have been discarded
+    private static final ReferenceQueue<Location> discarded =
+            new ReferenceQueue<>();
+
+    /*
+     * invariant:
+     *
+     * for each name in locations.keySet(), locations.get(name).name equals
+     * name, and locations.get(name).get() is either null or a location whose
+     * name equals name
+     */
+
+    /**
+     * This class only provides static methods.
+     */
+    private LocationPool() {
+    }
+
+    /**
+     * Returns the canonical location with the given name, creating it if no
+     * location with that name is in the pool.
+     *
+     * @require name != null
+     * @ensure Returns the canonical location with the given name.
+     */
+    static synchronized Location intern(String name) {
+        removeDiscarded();
+        Entry entry = locations.get(name);
+        Location location = (entry == null ? null : entry.get());
+        if (location == null) {
+            location = new Location(name);
+            locations.put(name, new Entry(name, location, discarded));
+        }
+        return location;
+    }
+
+    /**
+     * Removes the entries of the canonical locations that have been
+     * discarded.
+     */
+    private static void removeDiscarded() {
+        // the next reference to a discarded location
+        Reference<? extends Location> reference;
+        while ((reference = discarded.poll()) != null) {
+            Entry entry = (Entry) reference;
+            // the entry may have been replaced by a newer location
+            locations.remove(entry.name, entry);
+        }
+    }
+
+    /**
+     * A weak reference to a canonical location, that remembers its name.
+     */
+    private static final class Entry extends WeakReference<Location> {
+
+        // the name of the location
+        private final String name;
+
+        /**
+         * Creates a weak reference to the given location, with the given name,
+         * that is added to queue once the location is discarded.
+         */
+        Entry(String name, Location location, ReferenceQueue<Location> queue) {
+            super(location, queue);
+            this.name = name;
+        }
+    }
+
+}
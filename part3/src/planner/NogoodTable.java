@@ -0,0 +1,189 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A bounded table of the dead ends (nogoods) found by a search that
+ * allocates events in a fixed order, so that equivalent dead ends reached by
+ * a different route can be cut at once.
+ * </p>
+ *
+ * <p>
+ * When the search has allocated its first k events, the events left to
+ * allocate are fixed, so the rest of the search depends only on the set of
+ * venues that are still available, the traffic caused so far, and the lower
+ * bounds that symmetry breaking puts on the venues of the remaining events
+ * (see AllocationSearch). (Since each event takes one venue, k is fixed by the
+ * size of the set of venues.) If the search finds that no allocation of the
+ * remaining events exists from such a state, the state is recorded; a later
+ * state with the same available venues, at least as much traffic on every
+ * corridor, and bounds at least as high must fail as well, since any traffic
+ * that is unsafe when added to the smaller traffic is also unsafe when added
+ * to the larger, and higher bounds only rule out more venues.
+ * </p>
+ *
+ * <p>
+ * The table is keyed by the set of available venues, and keeps a few of the
+ * most recent nogoods for each set. It holds at most a fixed number of sets,
+ * evicting the least recently used set when it is full, so that its memory
+ * use is bounded however long the search runs.
+ * </p>
+ */
+final class NogoodTable {
+
+    // the greatest number of nogoods kept for each set of venues
+    private static final int NOGOODS_PER_SET = 4;
+
+    /*
+     * the nogoods for each set of available venues, most recent first, and in
+     * least recently used order of the sets
+     */
+    private final LinkedHashMap<VenueSetKey, Nogood[]> table;
+
+    /*
+     * invariant: table.size() <= capacity && each value of table has length
+     * NOGOODS_PER_SET, and holds its non-null elements first
+     */
+
+    /**
+     * Creates an empty table that holds the nogoods of at most capacity sets
+     * of venues.
+     *
+     * @require capacity > 0
+     */
+    NogoodTable(int capacity) {
+        table = new LinkedHashMap<VenueSetKey, Nogood[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<VenueSetKey, Nogood[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns true if the table holds a nogood that shows that no allocation
+     * of the remaining events exists, given the available venues, the traffic
+     * caused so far and the bounds on the venues of the remaining events.
+     *
+     * @require available != null && traffic != null && bounds != null
+     */
+    boolean contains(long[] available, Traffic traffic, int[] bounds) {
+        Nogood[] nogoods = table.get(new VenueSetKey(available));
+        if (nogoods == null) {
+            return false;
+        }
+        for (int i = 0; i < nogoods.length && nogoods[i] != null; i++) {
+            if (nogoods[i].isImpliedBy(traffic, bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that no allocation of the remaining events exists, given the
+     * available venues, the traffic caused so far and the bounds on the
+     * venues of the remaining events. Copies of all three are kept, so the
+     * caller may go on to modify them.
+     *
+     * @require available != null && traffic != null && bounds != null
+     */
+    void add(long[] available, Traffic traffic, int[] bounds) {
+        VenueSetKey key = new VenueSetKey(available.clone());
+        Nogood[] nogoods = table.get(key);
+        Nogood[] kept = new Nogood[NOGOODS_PER_SET];
+        kept[0] = new Nogood(new Traffic(traffic), bounds.clone());
+        int count = 1; // the number of nogoods kept
+        if (nogoods != null) {
+            for (int i = 0; i < nogoods.length && nogoods[i] != null
+                    && count < kept.length; i++) {
+                // drop the nogoods that the new one makes redundant
+                if (!kept[0].isImpliedBy(nogoods[i].traffic,
+                        nogoods[i].bounds)) {
+                    kept[count++] = nogoods[i];
+                }
+            }
+        }
+        table.put(key, kept);
+    }
+
+    /**
+     * Returns the number of sets of venues that the table holds nogoods for.
+     */
+    int size() {
+        return table.size();
+    }
+
+    /**
+     * The traffic and bounds of a state from which no allocation exists.
+     */
+    private static final class Nogood {
+
+        // the traffic caused so far
+        private final Traffic traffic;
+        // the bounds on the venues of the remaining events
+        private final int[] bounds;
+
+        /**
+         * Creates a nogood for the given traffic and bounds, which must not be
+         * modified afterwards.
+         */
+        Nogood(Traffic traffic, int[] bounds) {
+            this.traffic = traffic;
+            this.bounds = bounds;
+        }
+
+        /**
+         * Returns true if a state with the same available venues as this
+         * nogood, and the given traffic and bounds, must also fail: that is,
+         * if the traffic dominates this traffic and each bound is at least as
+         * high as this one.
+         *
+         * @require bounds.length == this.bounds.length
+         */
+        boolean isImpliedBy(Traffic traffic, int[] bounds) {
+            for (int c = 0; c < bounds.length; c++) {
+                if (bounds[c] < this.bounds[c]) {
+                    return false;
+                }
+            }
+            return traffic.dominates(this.traffic);
+        }
+
+    }
+
+    /**
+     * A set of venues (see VenueSet) that can be used as a key in a map.
+     */
+    private static final class VenueSetKey {
+
+        // the venues in the set
+        private final long[] venues;
+        // the hash code of the set
+        private final int hash;
+
+        /**
+         * Creates a key for the given set, which must not be modified while
+         * the key is in use.
+         */
+        VenueSetKey(long[] venues) {
+            this.venues = venues;
+            hash = Arrays.hashCode(venues);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof VenueSetKey && Arrays.equals(venues,
+                    ((VenueSetKey) object).venues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+package planner;
+
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * A search for safe allocations of events to venues that runs on the common
+ * fork/join pool.
+ * </p>
+ *
+ * <p>
+ * Each choice of venue for one of the first SPLIT_DEPTH events is the root of
+ * an independent subtree of the search, and is searched by a separate task, so
+ * that idle workers can steal subtrees from busy ones. Below that depth each
+ * task searches its subtree sequentially, keeping a running total of the
+ * traffic caused by its partial allocation and abandoning a branch as soon as
+ * that traffic is unsafe.
+ * </p>
+ *
+ * <p>
+ * When looking for a single safe allocation, the first task to find one
+ * records it, and every other task stops at the next node that it visits.
+ * When enumerating every safe allocation, each task returns the allocations
+ * found in its own subtree, and these lists are concatenated as the tasks are
+ * joined. (Different subtrees never contain the same allocation.)
+ * </p>
+ */
+final class ParallelAllocator {
+
+    // the number of events whose venue choices are forked as separate tasks
+    private static final int SPLIT_DEPTH = 2;
+
+    // the events and venues in the order given, shared by the allocations
+    private final AllocationView.Tables tables;
+    // the events to be allocated, in the order they are allocated
+    private final Event[] events;
+    // the venues that events may be allocated to
+    private final Venue[] venues;
+    /*
+     * capable[e] is the set (see VenueSet) of the venues that can host
+     * events[e]
+     */
+    private final long[][] capable;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event. The table is
+     * filled before the search starts, so that the workers do not contend for
+     * the traffic cache.
+     */
+    private final Traffic[][] eventTraffic;
+    // true if every safe allocation is wanted, rather than the first
+    private final boolean findAll;
+    // the first safe allocation found, if only one is wanted
+    private final AtomicReference<AllocationView> solution;
+
+    /*
+     * invariant:
+     *
+     * events != null && venues != null && capable != null && eventTraffic !=
+     * null && solution != null &&
+     *
+     * (findAll ==> solution.get() == null)
+     */
+
+    /**
+     * Creates a search for safe allocations of the given events to the given
+     * venues.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     */
+    private ParallelAllocator(List<Event> events, List<Venue> venues,
+            boolean findAll) {
+        this.tables = new AllocationView.Tables(events, venues);
+        this.events = events.toArray(new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        this.eventTraffic = AllocationSearch.findEventTraffic(this.events,
+                this.venues);
+        this.capable = AllocationSearch.findCapableVenues(eventTraffic,
+                this.venues.length);
+        this.findAll = findAll;
+        this.solution = new AtomicReference<>();
+    }
+
+    /**
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    static Map<Event, Venue> findAllocation(List<Event> events,
+            List<Venue> venues) {
+        ParallelAllocator search = new ParallelAllocator(events, venues,
+                false);
+        search.root().invoke();
+        // the allocation found, if there is one
+        AllocationView allocation = search.solution.get();
+        return (allocation == null ? null : allocation.toMap());
+    }
+
+    /**
+     * Returns a list of all of the possible safe allocations of events to
+     * venues, each appearing exactly once.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a list containing each of the possible safe allocations
+     *         of events to venues exactly once. (If there are no possible
+     *         allocations, then the list is empty.)
+     */
+    static List<AllocationView> allocations(List<Event> events,
+            List<Venue> venues) {
+        ParallelAllocator search = new ParallelAllocator(events, venues, true);
+        return search.root().invoke();
+    }
+
+    /**
+     * Returns the task that searches the whole search tree.
+     */
+    private SearchTask root() {
+        return new SearchTask(0, new int[events.length], VenueSet.full(
+                venues.length), new Traffic());
+    }
+
+    /**
+     * Returns true if the search has been cancelled because a safe allocation
+     * has been found, and only one is wanted.
+     */
+    private boolean cancelled() {
+        return solution.get() != null;
+    }
+
+    /**
+     * Searches sequentially for safe allocations that extend the given partial
+     * allocation of the first index events, adding any that are found to
+     * found, or recording the first one found in solution.
+     *
+     * @require 0 <= index <= events.length && assigned.length == events.length
+     *          && assigned[0 .. index - 1] allocates the first index events
+     *          to distinct venues (by index) that can host them && available is the set
+     *          of venues not in assigned[0 .. index - 1] && traffic is the
+     *          (safe) traffic caused by that partial allocation && found !=
+     *          null
+     * @ensure Returns true if the search should stop (i.e. a safe allocation
+     *         has been found and only one is wanted). Otherwise assigned,
+     *         available and traffic are the same as they were when this method
+     *         was called.
+     */
+    private boolean search(int index, int[] assigned, long[] available,
+            Traffic traffic, List<AllocationView> found) {
+        if (cancelled()) {
+            return true;
+        }
+        /* BASE CASE: no more events to allocate */
+        if (index == events.length) {
+            if (findAll) {
+                found.add(toView(assigned));
+                return false;
+            }
+            solution.compareAndSet(null, toView(assigned));
+            return true;
+        }
+
+        /* RECURSIVE CASE: there is at least one more event to allocate. */
+        for (int i = 0; i < venues.length; i++) {
+            if (!VenueSet.containsBoth(capable[index], available, i)) {
+                continue;
+            }
+            // the traffic caused by hosting the next event at the ith venue
+            Traffic extraTraffic = eventTraffic[index][i];
+            boolean stop = false; // whether the search should stop
+            if (traffic.addAndCheckSafe(extraTraffic)) {
+                VenueSet.remove(available, i);
+                assigned[index] = i;
+                stop = search(index + 1, assigned, available, traffic, found);
+                VenueSet.add(available, i);
+            }
+            traffic.removeTraffic(extraTraffic);
+            if (stop) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a view of the allocation of each event to the venue assigned to
+     * it. (The events are allocated in the order given, so the ordinals of
+     * the view are the indices of the search.)
+     *
+     * @require assigned.length == events.length && assigned allocates each
+     *          event to a venue
+     */
+    private AllocationView toView(int[] assigned) {
+        return new AllocationView(tables, assigned.clone());
+    }
+
+    /**
+     * A task that searches the subtree below a partial allocation of the
+     * first index events, returning the safe allocations found in it (if
+     * every safe allocation is wanted).
+     */
+    private final class SearchTask extends
+            RecursiveTask<List<AllocationView>> {
+
+        private static final long serialVersionUID = 1L;
+
+        // the number of events that have been allocated
+        private final int index;
+        // the venues (by index) allocated to the first index events
+        private final int[] assigned;
+        // the venues that have not been allocated an event
+        private final long[] available;
+        // the traffic caused by the partial allocation
+        private final Traffic traffic;
+
+        /**
+         * Creates a task for the subtree below the given partial allocation.
+         * The task takes ownership of the given arrays and traffic.
+         *
+         * @require the arguments satisfy the precondition of search
+         */
+        SearchTask(int index, int[] assigned, long[] available,
+                Traffic traffic) {
+            this.index = index;
+            this.assigned = assigned;
+            this.available = available;
+            this.traffic = traffic;
+        }
+
+        @Override
+        protected List<AllocationView> compute() {
+            // the safe allocations found in this subtree
+            List<AllocationView> found = new ArrayList<>();
+            if (index >= SPLIT_DEPTH || index == events.length) {
+                search(index, assigned, available, traffic, found);
+                return found;
+            }
+
+            // fork a task for each safe choice of venue for the next event
+            List<SearchTask> subtasks = new ArrayList<>();
+            for (int i = 0; i < venues.length && !cancelled(); i++) {
+                if (!VenueSet.containsBoth(capable[index], available, i)) {
+                    continue;
+                }
+                Traffic subtaskTraffic = new Traffic(traffic);
+                if (subtaskTraffic.addAndCheckSafe(eventTraffic[index][i])) {
+                    int[] subtaskAssigned = assigned.clone();
+                    long[] subtaskAvailable = available.clone();
+                    subtaskAssigned[index] = i;
+                    VenueSet.remove(subtaskAvailable, i);
+                    subtasks.add(new SearchTask(index + 1, subtaskAssigned,
+                            subtaskAvailable, subtaskTraffic));
+                }
+            }
+            invokeAll(subtasks);
+            for (SearchTask subtask : subtasks) {
+                found.addAll(subtask.join());
+            }
+            return found;
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A branch-and-bound search for the safe allocation of events to venues that
+ * minimises the peak corridor load: the greatest ratio, over all corridors,
+ * of the traffic on the corridor to its capacity.
+ * </p>
+ *
+ * <p>
+ * The search allocates one event at a time, in the order chosen by
+ * EventOrdering.FEWEST_VENUES_FIRST, keeping a running total of the traffic
+ * caused by the partial allocation and the peak load of that traffic. Since
+ * adding traffic never lowers the load on a corridor, the peak load of any
+ * allocation that extends a partial allocation is at least
+ * </p>
+ *
+ * <p>
+ * max(current peak, max over each unallocated event e of (min over each
+ * available venue v that can host e of the peak load after adding the
+ * traffic of e at v))
+ * </p>
+ *
+ * <p>
+ * and a branch is abandoned as soon as this bound is unsafe, or is no better
+ * than the best allocation found so far. The venues for each event are tried
+ * in increasing order of the peak load that they lead to, so that good
+ * allocations are found early and the bound prunes as much as possible.
+ * </p>
+ */
+final class PeakLoadSearch {
+
+    // the events to be allocated, in the order they are allocated
+    private final Event[] events;
+    // the venues that events may be allocated to
+    private final Venue[] venues;
+    /*
+     * capable[e] is the set (see VenueSet) of the venues that can host
+     * events[e]
+     */
+    private final long[][] capable;
+    /*
+     * eventTraffic[e][v] is the traffic caused by hosting events[e] at
+     * venues[v], or null if the venue cannot host the event
+     */
+    private final Traffic[][] eventTraffic;
+    /*
+     * candidates[e][0 .. n - 1] and candidateLoads[e][0 .. n - 1] hold the
+     * venues to try for events[e], and the peak load that each leads to, while
+     * the search is at depth e
+     */
+    private final int[][] candidates;
+    private final LoadRatio[][] candidateLoads;
+
+    // the traffic caused by the current partial allocation
+    private Traffic traffic;
+    // the venues (indices into venues) of the current partial allocation
+    private int[] assigned;
+    // the venues that have not been allocated an event
+    private long[] available;
+    // the best allocation found so far, or null if none has been found
+    private int[] best;
+    // the peak load of the best allocation found so far
+    private LoadRatio bestLoad;
+
+    /*
+     * invariant:
+     *
+     * events != null && venues != null && capable != null && eventTraffic !=
+     * null && candidates != null && candidateLoads != null &&
+     *
+     * for each e and v, VenueSet.contains(capable[e], v) iff
+     * venues[v].canHost(events[e]) iff eventTraffic[e][v] != null &&
+     *
+     * (best == null iff bestLoad == null)
+     */
+
+    /**
+     * Creates a search for the safe allocation of the given events to the
+     * given venues that minimises the peak corridor load.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     */
+    PeakLoadSearch(List<Event> events, List<Venue> venues) {
+        this.events = EventOrdering.FEWEST_VENUES_FIRST.order(events, venues)
+                .toArray(new Event[0]);
+        this.venues = venues.toArray(new Venue[0]);
+        eventTraffic = AllocationSearch.findEventTraffic(this.events,
+                this.venues);
+        capable = AllocationSearch.findCapableVenues(eventTraffic,
+                this.venues.length);
+        candidates = new int[this.events.length][this.venues.length];
+        candidateLoads = new LoadRatio[this.events.length][this.venues.length];
+    }
+
+    /**
+     * Returns the safe allocation of the events to the venues with the lowest
+     * peak corridor load, if there is at least one possible safe allocation,
+     * or null otherwise. (If several allocations share the lowest peak load,
+     * one of them is returned.)
+     *
+     * @ensure Returns a safe allocation whose peak corridor load is no greater
+     *         than that of any other safe allocation, or null if there is no
+     *         safe allocation.
+     */
+    Map<Event, Venue> findAllocation() {
+        traffic = new Traffic();
+        assigned = new int[events.length];
+        available = VenueSet.full(venues.length);
+        best = null;
+        bestLoad = null;
+        search(0, LoadRatio.ZERO);
+        if (best == null) {
+            return null;
+        }
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int e = 0; e < events.length; e++) {
+            allocation.put(events[e], venues[best[e]]);
+        }
+        return allocation;
+    }
+
+    /**
+     * Searches for allocations that extend the current partial allocation of
+     * the first index events and have a lower peak load than the best
+     * allocation found so far, recording any that are found.
+     *
+     * @require 0 <= index <= events.length && assigned[0 .. index - 1]
+     *          allocates the first index events to distinct venues that can
+     *          host them && available is the set of venues not in
+     *          assigned[0 .. index - 1] && traffic is the (safe) traffic
+     *          caused by that partial allocation && peak is its peak load &&
+     *          admits(peak)
+     * @ensure assigned[0 .. index - 1], available and traffic are the same as
+     *         they were when this method was called.
+     */
+    private void search(int index, LoadRatio peak) {
+        /* BASE CASE: no more events to allocate */
+        if (index == events.length) {
+            best = assigned.clone();
+            bestLoad = peak;
+            return;
+        }
+
+        /*
+         * BOUND: each unallocated event must go to some available venue, so
+         * the peak load of any extension is at least the least peak load that
+         * each of them can lead to on its own.
+         */
+        for (int e = index + 1; e < events.length; e++) {
+            LoadRatio bound = leastLoad(e, peak);
+            if (bound == null || !admits(bound)) {
+                return;
+            }
+        }
+
+        /* BRANCH: try the venues for the next event, least loaded first */
+        int count = collectCandidates(index, peak);
+        for (int i = 0; i < count; i++) {
+            int v = candidates[index][i];
+            LoadRatio load = candidateLoads[index][i];
+            if (!admits(load)) {
+                // a better allocation has been found since the list was made
+                return;
+            }
+            traffic.addTraffic(eventTraffic[index][v]);
+            VenueSet.remove(available, v);
+            assigned[index] = v;
+            search(index + 1, load);
+            VenueSet.add(available, v);
+            traffic.removeTraffic(eventTraffic[index][v]);
+        }
+    }
+
+    /**
+     * Returns the least peak load that hosting events[e] at any available
+     * venue can lead to, given the current traffic and its peak load, or null
+     * if no available venue can host the event.
+     *
+     * @require index < e < events.length && peak is the peak load of traffic
+     */
+    private LoadRatio leastLoad(int e, LoadRatio peak) {
+        LoadRatio least = null; // the least load found so far
+        for (int v = 0; v < venues.length; v++) {
+            if (VenueSet.containsBoth(capable[e], available, v)) {
+                LoadRatio load = peak.max(traffic.peakLoadWith(
+                        eventTraffic[e][v]));
+                if (least == null || load.compareTo(least) < 0) {
+                    least = load;
+                }
+            }
+        }
+        return least;
+    }
+
+    /**
+     * Fills candidates[index] and candidateLoads[index] with the available
+     * venues that can host events[index] without leading to a peak load that
+     * the search would reject, in increasing order of the peak load that they
+     * lead to, and returns the number of such venues.
+     *
+     * @require 0 <= index < events.length && peak is the peak load of traffic
+     */
+    private int collectCandidates(int index, LoadRatio peak) {
+        int[] venuesToTry = candidates[index];
+        LoadRatio[] loads = candidateLoads[index];
+        int count = 0; // the number of candidates collected
+        for (int v = 0; v < venues.length; v++) {
+            if (!VenueSet.containsBoth(capable[index], available, v)) {
+                continue;
+            }
+            LoadRatio load = peak.max(traffic.peakLoadWith(
+                    eventTraffic[index][v]));
+            if (!admits(load)) {
+                continue;
+            }
+            // insert the venue, keeping the candidates sorted by load
+            int i = count++;
+            while (i > 0 && loads[i - 1].compareTo(load) > 0) {
+                venuesToTry[i] = venuesToTry[i - 1];
+                loads[i] = loads[i - 1];
+                i--;
+            }
+            venuesToTry[i] = v;
+            loads[i] = load;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if an allocation with the given peak load would be safe,
+     * and better than the best allocation found so far.
+     */
+    private boolean admits(LoadRatio load) {
+        return load.isSafe() && (bestLoad == null || load.compareTo(
+                bestLoad) < 0);
+    }
+
+}
@@ -0,0 +1,55 @@
+package planner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits on the time and the number of nodes that a search may use,
+ * measured from the moment that the budget is created.
+ */
+final class SearchBudget {
+
+    // the time at which the budget was created (see System.nanoTime)
+    private final long start;
+    // the longest that the search may run, in nanoseconds
+    private final long timeLimit;
+    // the greatest number of nodes that the search may visit
+    private final long nodeLimit;
+
+    /* invariant: timeLimit >= 0 && nodeLimit >= 0 */
+
+    /**
+     * Creates a budget of timeLimitMillis milliseconds from now, and nodeLimit
+     * nodes. (Long.MAX_VALUE may be given for either limit, for a search that
+     * should not be limited in that way.)
+     *
+     * @require timeLimitMillis >= 0 && nodeLimit >= 0
+     */
+    SearchBudget(long timeLimitMillis, long nodeLimit) {
+        start = System.nanoTime();
+        timeLimit = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Returns true if a search that has visited nodeCount nodes has spent its
+     * budget, and should stop before visiting another node. The clock is only
+     * read every 256 nodes, so a search may overrun its time limit slightly.
+     *
+     * @require nodeCount >= 0
+     */
+    boolean isSpent(long nodeCount) {
+        if (nodeCount >= nodeLimit) {
+            return true;
+        }
+        // reading the clock costs about as much as visiting a node
+        return (nodeCount & 0xFF) == 0 && elapsed() > timeLimit;
+    }
+
+    /**
+     * Returns the time since the budget was created, in nanoseconds.
+     */
+    long elapsed() {
+        return System.nanoTime() - start;
+    }
+
+}
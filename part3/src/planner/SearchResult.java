@@ -0,0 +1,83 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An immutable result of a search for an allocation of events to venues: the
+ * allocation found (if any), together with statistics describing the work
+ * that the search did.
+ * </p>
+ *
+ * <p>
+ * A search that was given a time or node limit may stop before it finishes,
+ * in which case its result is incomplete, and holds the best partial
+ * allocation that the search found before it stopped.
+ * </p>
+ */
+public final class SearchResult {
+
+    // the allocation found, or null if there is none
+    private final Map<Event, Venue> allocation;
+    // the work done by the search
+    private final SearchStatistics statistics;
+    // true if the search finished, rather than stopping at a limit
+    private final boolean complete;
+
+    /* invariant: statistics != null && (!complete ==> allocation != null) */
+
+    /**
+     * Creates the result of a search that found the given allocation (or
+     * null), doing the work described by statistics, that finished iff
+     * complete is true.
+     *
+     * @require statistics != null && (!complete ==> allocation != null)
+     */
+    SearchResult(Map<Event, Venue> allocation, SearchStatistics statistics,
+            boolean complete) {
+        this.allocation = (allocation == null ? null : Collections
+                .unmodifiableMap(allocation));
+        this.statistics = statistics;
+        this.complete = complete;
+    }
+
+    /**
+     * Returns true if the search finished, so that the allocation is the one
+     * that it was looking for (or null, if there is none); and false if the
+     * search stopped at a limit, so that the allocation is only the best
+     * partial allocation that it found.
+     *
+     * @return true iff the search finished
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the allocation found by the search. If a search for a safe
+     * allocation of every event is complete, this is such an allocation, or
+     * null if the search found that there is none. Otherwise it is a safe
+     * allocation of some (possibly none) of the events.
+     *
+     * @return an unmodifiable view of the allocation found, or null
+     */
+    public Map<Event, Venue> getAllocation() {
+        return allocation;
+    }
+
+    /**
+     * Returns statistics describing the work done by the search.
+     *
+     * @return the statistics of the search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return (allocation == null ? "no allocation" : allocation.toString())
+                + (complete ? "" : " (incomplete)") + " (" + statistics + ")";
+    }
+
+}
@@ -0,0 +1,145 @@
+package planner;
+
+/**
+ * <p>
+ * An immutable record of the work done by one search for an allocation of
+ * events to venues.
+ * </p>
+ *
+ * <p>
+ * A search visits a node of its search tree for each partial allocation that
+ * it extends. At each node it considers each venue for the next event, and
+ * cuts the branch for that venue if the venue cannot host the event, or if
+ * hosting the event there would make the traffic unsafe. (Venues that have
+ * already been allocated an event are skipped without being counted.) A node
+ * may also be cut as soon as it is visited, if it is known to be equivalent to
+ * a dead end that has already been found (see NogoodTable), and a branch may
+ * be cut because it is equivalent to another branch, by swapping
+ * interchangeable venues or events (see AllocationSearch).
+ * </p>
+ */
+public final class SearchStatistics {
+
+    // the number of nodes (partial allocations) visited
+    private final long nodeCount;
+    // the number of branches cut because the venue could not host the event
+    private final long canHostCuts;
+    // the number of branches cut because the traffic would be unsafe
+    private final long trafficCuts;
+    // the number of nodes cut because they were known dead ends
+    private final long nogoodCuts;
+    // the number of branches cut because they were equivalent to others
+    private final long symmetryCuts;
+    // the greatest number of events allocated at any node visited
+    private final int maxDepth;
+    // the elapsed (wall clock) time of the search, in nanoseconds
+    private final long wallTimeNanos;
+
+    /*
+     * invariant: nodeCount >= 0 && canHostCuts >= 0 && trafficCuts >= 0 &&
+     * nogoodCuts >= 0 && symmetryCuts >= 0 && maxDepth >= 0 &&
+     * wallTimeNanos >= 0
+     */
+
+    /**
+     * Creates a record of a search with the given counts and time.
+     *
+     * @require nodeCount >= 0 && canHostCuts >= 0 && trafficCuts >= 0 &&
+     *          nogoodCuts >= 0 && symmetryCuts >= 0 && maxDepth >= 0 &&
+     *          wallTimeNanos >= 0
+     */
+    SearchStatistics(long nodeCount, long canHostCuts, long trafficCuts,
+            long nogoodCuts, long symmetryCuts, int maxDepth,
+            long wallTimeNanos) {
+        this.nodeCount = nodeCount;
+        this.canHostCuts = canHostCuts;
+        this.trafficCuts = trafficCuts;
+        this.nogoodCuts = nogoodCuts;
+        this.symmetryCuts = symmetryCuts;
+        this.maxDepth = maxDepth;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * Returns the number of nodes of the search tree (i.e. partial
+     * allocations) that were visited.
+     *
+     * @return the number of nodes visited
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of branches that were cut because the venue could
+     * not host the event.
+     *
+     * @return the number of branches cut by Venue.canHost
+     */
+    public long getCanHostCuts() {
+        return canHostCuts;
+    }
+
+    /**
+     * Returns the number of branches that were cut because hosting the event
+     * at the venue would have made the traffic unsafe.
+     *
+     * @return the number of branches cut by traffic safety
+     */
+    public long getTrafficCuts() {
+        return trafficCuts;
+    }
+
+    /**
+     * Returns the number of nodes that were cut as soon as they were visited,
+     * because they were known to be equivalent to a dead end.
+     *
+     * @return the number of nodes cut by nogoods
+     */
+    public long getNogoodCuts() {
+        return nogoodCuts;
+    }
+
+    /**
+     * Returns the number of branches that were cut because they were
+     * equivalent to another branch, by swapping interchangeable venues or
+     * events.
+     *
+     * @return the number of branches cut by symmetry breaking
+     */
+    public long getSymmetryCuts() {
+        return symmetryCuts;
+    }
+
+    /**
+     * Returns the greatest number of events that were allocated at any node
+     * visited (so it equals the number of events if an allocation was
+     * found).
+     *
+     * @return the deepest level of the search tree reached
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the elapsed (wall clock) time taken by the search, in
+     * nanoseconds.
+     *
+     * @return the wall time of the search in nanoseconds
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "nodes: " + nodeCount + ", canHost cuts: " + canHostCuts
+                + ", traffic cuts: " + trafficCuts + ", nogood cuts: "
+                + nogoodCuts + ", symmetry cuts: " + symmetryCuts
+                + ", max depth: "
+                + maxDepth + ", wall time: " + (wallTimeNanos / 1000000)
+                + " ms";
+    }
+
+}
@@ -0,0 +1,153 @@
+package planner;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * <p>
+ * Running totals of the statistics of every search recorded, so that the
+ * behaviour of the solver can be monitored over the life of a program.
+ * </p>
+ *
+ * <p>
+ * Statistics are only added to the totals when asked: either by giving the
+ * totals to a search (see AllocationSearch.setMetrics), or by recording the
+ * statistics of a SearchResult. Searches that are not monitored cost nothing
+ * extra.
+ * </p>
+ *
+ * <p>
+ * The shared instance (see getInstance) can be registered on the platform
+ * MBean server as "planner:type=SolverMetrics" (see SolverMetricsMBean) by
+ * calling register, so that the totals can be watched with any JMX client,
+ * or polled by a metrics library. Nothing is registered until an application
+ * asks for it.
+ * </p>
+ */
+public final class SolverMetrics implements SolverMetricsMBean {
+
+    // the name under which the metrics are registered
+    public static final String OBJECT_NAME = "planner:type=SolverMetrics";
+
+    // the shared instance, which may be registered on the MBean server
+    private static final SolverMetrics INSTANCE = new SolverMetrics();
+
+    // the totals of the statistics recorded
+    private final LongAdder searchCount = new LongAdder();
+    private final LongAdder nodeCount = new LongAdder();
+    private final LongAdder canHostCuts = new LongAdder();
+    private final LongAdder trafficCuts = new LongAdder();
+    private final LongAdder nogoodCuts = new LongAdder();
+    private final LongAdder symmetryCuts = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder wallTimeNanos = new LongAdder();
+
+    /**
+     * Creates metrics with every total zero. These metrics are separate from
+     * the shared instance, and are not registered.
+     */
+    public SolverMetrics() {
+    }
+
+    /**
+     * Returns the shared metrics of the solver: the instance that is
+     * registered by register.
+     *
+     * @return the shared instance of this class
+     */
+    public static SolverMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the shared instance (see getInstance) on the platform MBean
+     * server under OBJECT_NAME, unless it is registered already.
+     *
+     * @throws JMException
+     *             if the instance cannot be registered
+     * @throws SecurityException
+     *             if the caller does not have permission to register it
+     */
+    public static synchronized void register() throws JMException {
+        // the server on which the instance is registered
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        // the name of the instance
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(INSTANCE, name);
+        }
+    }
+
+    /**
+     * Adds the given statistics of a search to the totals.
+     *
+     * @param statistics
+     *            the statistics of a search (see SearchResult.getStatistics)
+     * @throws NullPointerException
+     *             if statistics is null
+     */
+    public void record(SearchStatistics statistics) {
+        searchCount.increment();
+        nodeCount.add(statistics.getNodeCount());
+        canHostCuts.add(statistics.getCanHostCuts());
+        trafficCuts.add(statistics.getTrafficCuts());
+        nogoodCuts.add(statistics.getNogoodCuts());
+        symmetryCuts.add(statistics.getSymmetryCuts());
+        maxDepth.accumulateAndGet(statistics.getMaxDepth(), Math::max);
+        wallTimeNanos.add(statistics.getWallTimeNanos());
+    }
+
+    @Override
+    public long getSearchCount() {
+        return searchCount.sum();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return nodeCount.sum();
+    }
+
+    @Override
+    public long getCanHostCuts() {
+        return canHostCuts.sum();
+    }
+
+    @Override
+    public long getTrafficCuts() {
+        return trafficCuts.sum();
+    }
+
+    @Override
+    public long getNogoodCuts() {
+        return nogoodCuts.sum();
+    }
+
+    @Override
+    public long getSymmetryCuts() {
+        return symmetryCuts.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long getTotalWallTimeMillis() {
+        return wallTimeNanos.sum() / 1000000;
+    }
+
+    @Override
+    public void reset() {
+        searchCount.reset();
+        nodeCount.reset();
+        canHostCuts.reset();
+        trafficCuts.reset();
+        nogoodCuts.reset();
+        symmetryCuts.reset();
+        maxDepth.set(0);
+        wallTimeNanos.reset();
+    }
+
+}
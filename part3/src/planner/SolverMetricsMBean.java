@@ -0,0 +1,54 @@
+package planner;
+
+/**
+ * The management interface of SolverMetrics, through which the totals of
+ * every search are published as a JMX MBean.
+ */
+public interface SolverMetricsMBean {
+
+    /**
+     * Returns the number of searches recorded.
+     */
+    long getSearchCount();
+
+    /**
+     * Returns the total number of nodes visited by the searches recorded.
+     */
+    long getNodeCount();
+
+    /**
+     * Returns the total number of branches cut by Venue.canHost.
+     */
+    long getCanHostCuts();
+
+    /**
+     * Returns the total number of branches cut by traffic safety.
+     */
+    long getTrafficCuts();
+
+    /**
+     * Returns the total number of nodes cut by nogoods.
+     */
+    long getNogoodCuts();
+
+    /**
+     * Returns the total number of branches cut by symmetry breaking.
+     */
+    long getSymmetryCuts();
+
+    /**
+     * Returns the deepest level reached by any search recorded.
+     */
+    int getMaxDepth();
+
+    /**
+     * Returns the total wall time of the searches recorded, in milliseconds.
+     */
+    long getTotalWallTimeMillis();
+
+    /**
+     * Sets every total back to zero.
+     */
+    void reset();
+
+}
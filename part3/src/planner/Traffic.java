@@ -1,5 +1,6 @@
 package planner;
 
+import java.io.*;
 import java.util.*;
 
 /**
@@ -11,6 +12,13 @@ import java.util.*;
  * The traffic on a corridor is measured in non-negative integer units,
  * representing people.
  * </p>
+ * 
+ * <p>
+ * A traffic record may be unmodifiable (see Venue.getSharedTraffic), in which
+ * case the methods that would modify it throw an
+ * UnsupportedOperationException. Copies of an unmodifiable traffic record made
+ * with the copy constructor are modifiable.
+ * </p>
  */
 public class Traffic {
 
@@ -18,22 +26,42 @@ public class Traffic {
     private final static String LINE_SEPARATOR = System.getProperty(
             "line.separator");
 
+    // The initial length of the arrays recording traffic
+    private final static int INITIAL_LENGTH = 4;
+
     /*
-     * A mapping from traffic corridors with traffic (i.e. corridors such that
-     * this.getTraffic(c) > 0) to the amount of traffic currently associated
-     * with them.
+     * The traffic corridors with traffic (i.e. corridors such that
+     * this.getTraffic(c) > 0) are recorded in the first size entries of three
+     * parallel arrays, in ascending order of their corridor id (see
+     * CorridorRegistry): ids[i] is the id of corridor corridors[i], and
+     * amounts[i] is the amount of traffic currently associated with it.
+     * 
+     * Recording traffic in primitive arrays, rather than in a map keyed by
+     * corridors, means that the traffic on a corridor can be found without
+     * comparing locations, and that two traffic records can be added together
+     * by a single merge of their arrays.
      */
-    private TreeMap<Corridor, Integer> trafficMap;
+    private int[] ids;
+    private Corridor[] corridors;
+    private int[] amounts;
+    // the number of corridors with traffic
+    private int size;
+    // true if this traffic record may not be modified
+    private boolean unmodifiable;
 
     /*
      * invariant:
      * 
-     * traffic !=null && !traffic.containsValue(null) &&
+     * ids != null && corridors != null && amounts != null &&
      * 
-     * for each corridor c in traffic.keySet(), traffic.get(c) > 0
+     * ids.length == corridors.length == amounts.length &&
      * 
-     * (Note: TreeMaps can't contain null keys so we don't need
-     * !traffic.containsKey(null) as an invariant)
+     * 0 <= size <= ids.length &&
+     * 
+     * for each i in 0 .. size - 1, corridors[i] != null && ids[i] ==
+     * corridors[i].getId() && amounts[i] > 0 &&
+     * 
+     * for each i in 1 .. size - 1, ids[i - 1] < ids[i]
      */
 
     /**
@@ -47,7 +75,10 @@ public class Traffic {
      * </p>
      */
     public Traffic() {
-        trafficMap = new TreeMap<>();
+        ids = new int[INITIAL_LENGTH];
+        corridors = new Corridor[INITIAL_LENGTH];
+        amounts = new int[INITIAL_LENGTH];
+        size = 0;
     }
 
     /**
@@ -69,7 +100,12 @@ public class Traffic {
      *             if initialTraffic is null
      */
     public Traffic(Traffic initialTraffic) {
-        trafficMap = new TreeMap<Corridor, Integer>(initialTraffic.trafficMap);
+        // the length of the copied arrays
+        int length = Math.max(initialTraffic.size, INITIAL_LENGTH);
+        ids = Arrays.copyOf(initialTraffic.ids, length);
+        corridors = Arrays.copyOf(initialTraffic.corridors, length);
+        amounts = Arrays.copyOf(initialTraffic.amounts, length);
+        size = initialTraffic.size;
     }
 
     /**
@@ -94,11 +130,9 @@ public class Traffic {
         if (corridor == null) {
             throw new NullPointerException("corridor cannot be null");
         }
-        int currentAmount = 0; // the current amount of traffic on corridor
-        if (trafficMap.get(corridor) != null) {
-            currentAmount = trafficMap.get(corridor);
-        }
-        return currentAmount;
+        // the position of the corridor in the arrays
+        int index = indexOf(corridor.getId());
+        return (index >= 0 ? amounts[index] : 0);
     }
 
     /**
@@ -109,7 +143,11 @@ public class Traffic {
      *         greater than zero
      */
     public Set<Corridor> getCorridorsWithTraffic() {
-        return new HashSet<>(trafficMap.keySet());
+        Set<Corridor> result = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(corridors[i]);
+        }
+        return result;
     }
 
     /**
@@ -132,7 +170,15 @@ public class Traffic {
      *             if other is null
      */
     public boolean sameTraffic(Traffic other) {
-        return trafficMap.equals(other.trafficMap);
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != other.ids[i] || amounts[i] != other.amounts[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -143,8 +189,8 @@ public class Traffic {
      *         or equal to the capacity of that corridor, and false otherwise.
      */
     public boolean isSafe() {
-        for (Corridor corridor : trafficMap.keySet()) {
-            if (trafficMap.get(corridor) > corridor.getCapacity()) {
+        for (int i = 0; i < size; i++) {
+            if (amounts[i] > corridors[i].getCapacity()) {
                 return false;
             }
         }
@@ -174,12 +220,18 @@ public class Traffic {
      * @throws InvalidTrafficException
      *             if the addition of amount and the current amount of traffic
      *             on the given corridor is negative (i.e. less than zero).
+     * @throws UnsupportedOperationException
+     *             if this traffic record is unmodifiable
      */
     public void updateTraffic(Corridor corridor, int amount) {
         if (corridor == null) {
             throw new NullPointerException("Parameter corridor cannot be null");
         }
-        int currentAmount = getTraffic(corridor);
+        checkModifiable();
+        // the position of the corridor in the arrays
+        int index = indexOf(corridor.getId());
+        // the current amount of traffic on the corridor
+        int currentAmount = (index >= 0 ? amounts[index] : 0);
         // check that the traffic would not become negative.
         if (currentAmount + amount < 0) {
             throw new InvalidTrafficException(
@@ -188,9 +240,30 @@ public class Traffic {
 
         // update the traffic on the corridor by amount
         if (currentAmount + amount == 0) {
-            trafficMap.remove(corridor);
+            if (index >= 0) {
+                // remove the corridor, shifting the later entries down
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                System.arraycopy(corridors, index + 1, corridors, index, size
+                        - index - 1);
+                System.arraycopy(amounts, index + 1, amounts, index, size
+                        - index - 1);
+                size--;
+                corridors[size] = null;
+            }
+        } else if (index >= 0) {
+            amounts[index] = currentAmount + amount;
         } else {
-            trafficMap.put(corridor, currentAmount + amount);
+            // insert the corridor, shifting the later entries up
+            index = -index - 1;
+            ensureLength(size + 1);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(corridors, index, corridors, index + 1, size
+                    - index);
+            System.arraycopy(amounts, index, amounts, index + 1, size - index);
+            ids[index] = corridor.getId();
+            corridors[index] = corridor;
+            amounts[index] = amount;
+            size++;
         }
     }
 
@@ -216,12 +289,170 @@ public class Traffic {
      *            the traffic to be added to this object
      * @throws NullPointerException
      *             if extraTraffic is null
+     * @throws UnsupportedOperationException
+     *             if this traffic record is unmodifiable
      */
     public void addTraffic(Traffic extraTraffic) {
-        for (Corridor corridor : extraTraffic.trafficMap.keySet()) {
-            trafficMap.put(corridor, getTraffic(corridor) + extraTraffic
-                    .getTraffic(corridor));
+        checkModifiable();
+        merge(extraTraffic);
+    }
+
+    /**
+     * <p>
+     * Adds all of the traffic defined by parameter extraTraffic to this object
+     * (exactly as addTraffic does), and returns true if the traffic on each
+     * corridor that has traffic in extraTraffic is now less than or equal to
+     * the capacity of that corridor, and false otherwise.
+     * </p>
+     * 
+     * <p>
+     * So if this traffic record was safe before the call, then the result is
+     * the same as calling isSafe() after addTraffic(extraTraffic), but the
+     * check is made during the same pass as the addition, and only looks at
+     * the corridors whose traffic has changed. This suits searches that keep
+     * a running total of traffic that is always safe.
+     * </p>
+     * 
+     * @param extraTraffic
+     *            the traffic to be added to this object
+     * @return true iff each corridor with traffic in extraTraffic carries no
+     *         more than its capacity after the addition
+     * @throws NullPointerException
+     *             if extraTraffic is null
+     * @throws UnsupportedOperationException
+     *             if this traffic record is unmodifiable
+     */
+    public boolean addAndCheckSafe(Traffic extraTraffic) {
+        checkModifiable();
+        return merge(extraTraffic);
+    }
+
+    /**
+     * Adds the traffic in extraTraffic to this object, returning true if each
+     * corridor with traffic in extraTraffic carries no more than its capacity
+     * afterwards.
+     * 
+     * @require extraTraffic != null && this object is modifiable
+     * @ensure For each corridor c, the traffic on c is increased by
+     *         extraTraffic.getTraffic(c), and returns true iff
+     *         this.getTraffic(c) <= c.getCapacity() for each c with
+     *         extraTraffic.getTraffic(c) > 0.
+     */
+    private boolean merge(Traffic extraTraffic) {
+        if (extraTraffic.size == 0) {
+            return true;
+        }
+        // the number of corridors with traffic in either object
+        int unionSize = size + extraTraffic.size;
+        for (int i = 0, j = 0; i < size && j < extraTraffic.size;) {
+            if (ids[i] < extraTraffic.ids[j]) {
+                i++;
+            } else if (ids[i] > extraTraffic.ids[j]) {
+                j++;
+            } else {
+                unionSize--;
+                i++;
+                j++;
+            }
         }
+        ensureLength(unionSize);
+
+        /*
+         * Merge the two sorted records from the back, so that each entry of
+         * this object is moved at most once and never overwritten before it
+         * has been read. Once extraTraffic is used up, the entries of this
+         * object that remain are already in place (k == i), so the merge
+         * stops there.
+         */
+        int i = size - 1; // the next entry of this object to be merged
+        int j = extraTraffic.size - 1; // the next entry of extraTraffic
+        boolean safe = true; // whether the changed corridors are safe
+        for (int k = unionSize - 1; j >= 0; k--) {
+            if (i >= 0 && ids[i] > extraTraffic.ids[j]) {
+                ids[k] = ids[i];
+                corridors[k] = corridors[i];
+                amounts[k] = amounts[i];
+                i--;
+            } else if (i < 0 || ids[i] < extraTraffic.ids[j]) {
+                ids[k] = extraTraffic.ids[j];
+                corridors[k] = extraTraffic.corridors[j];
+                amounts[k] = extraTraffic.amounts[j];
+                safe &= (amounts[k] <= corridors[k].getCapacity());
+                j--;
+            } else {
+                ids[k] = ids[i];
+                corridors[k] = corridors[i];
+                amounts[k] = amounts[i] + extraTraffic.amounts[j];
+                safe &= (amounts[k] <= corridors[k].getCapacity());
+                i--;
+                j--;
+            }
+        }
+        size = unionSize;
+        return safe;
+    }
+
+    /**
+     * <p>
+     * This method removes all of the traffic defined by parameter
+     * removedTraffic from this object. It is the inverse of addTraffic.
+     * </p>
+     * 
+     * <p>
+     * That is, for each traffic corridor c, this method updates the traffic on
+     * that corridor in this object by subtracting from it the traffic that
+     * parameter removedTraffic associates with c.
+     * </p>
+     * 
+     * <p>
+     * (Unless this == removedTraffic) this method must not modify the given
+     * parameter.
+     * </p>
+     * 
+     * @param removedTraffic
+     *            the traffic to be removed from this object
+     * @throws NullPointerException
+     *             if removedTraffic is null
+     * @throws InvalidTrafficException
+     *             if removing removedTraffic would leave a negative amount of
+     *             traffic on any corridor. In that case this object is left
+     *             unchanged.
+     * @throws UnsupportedOperationException
+     *             if this traffic record is unmodifiable
+     */
+    public void removeTraffic(Traffic removedTraffic) {
+        checkModifiable();
+        // check that no corridor would be left with negative traffic
+        int i = 0; // the next entry of this object to be compared
+        for (int j = 0; j < removedTraffic.size; j++) {
+            while (i < size && ids[i] < removedTraffic.ids[j]) {
+                i++;
+            }
+            if (i == size || ids[i] != removedTraffic.ids[j]
+                    || amounts[i] < removedTraffic.amounts[j]) {
+                throw new InvalidTrafficException(
+                        "Cannot have a negative amount of traffic.");
+            }
+        }
+
+        // subtract the traffic, dropping corridors that are left with none
+        int k = 0; // the next position to be written in this object
+        i = 0;
+        for (int j = 0; i < size; i++) {
+            int amount = amounts[i];
+            if (j < removedTraffic.size && ids[i] == removedTraffic.ids[j]) {
+                amount -= removedTraffic.amounts[j];
+                j++;
+            }
+            if (amount > 0) {
+                ids[k] = ids[i];
+                corridors[k] = corridors[i];
+                amounts[k] = amount;
+                k++;
+            }
+        }
+        Arrays.fill(corridors, k, size, null);
+        size = k;
     }
 
     /**
@@ -259,11 +490,50 @@ public class Traffic {
      */
     @Override
     public String toString() {
-        String result = ""; // the string representation
-        for (Corridor c : trafficMap.keySet()) {
-            result += c + ": " + trafficMap.get(c) + LINE_SEPARATOR;
+        StringBuilder result = new StringBuilder(); // the representation
+        try {
+            appendTo(result);
+        } catch (IOException e) {
+            // a StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * <p>
+     * Writes the string representation of this object (as defined by
+     * toString) to the given output, one line at a time, without building the
+     * whole representation in memory.
+     * </p>
+     * 
+     * <p>
+     * The positions of the corridors with traffic are sorted once, by the
+     * natural ordering of the corridors, and then written in that order, so
+     * the time taken is O(n log n) in the number n of corridors with traffic,
+     * and large traffic records can be written straight to a file or a
+     * socket.
+     * </p>
+     * 
+     * @param out
+     *            the output to write the representation to
+     * @throws IOException
+     *             if out throws an IOException
+     * @throws NullPointerException
+     *             if out is null
+     */
+    public void appendTo(Appendable out) throws IOException {
+        // the positions of the corridors with traffic, in the natural
+        // ordering of the corridors
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> corridors[i].compareTo(corridors[j]));
+        for (int i : order) {
+            out.append(corridors[i].toString()).append(": ").append(Integer
+                    .toString(amounts[i])).append(LINE_SEPARATOR);
         }
-        return result;
     }
 
     /**
@@ -279,18 +549,207 @@ public class Traffic {
      * @return true if this class is internally consistent, and false otherwise.
      */
     public boolean checkInvariant() {
-        if (trafficMap == null) {
+        if (ids == null || corridors == null || amounts == null) {
+            return false;
+        }
+        if (ids.length != corridors.length || ids.length != amounts.length) {
             return false;
         }
-        if (trafficMap.containsValue(null)) {
+        if (size < 0 || size > ids.length) {
             return false;
         }
-        for (Corridor c : trafficMap.keySet()) {
-            if (trafficMap.get(c) <= 0) {
+        for (int i = 0; i < size; i++) {
+            if (corridors[i] == null || ids[i] != corridors[i].getId()
+                    || amounts[i] <= 0) {
+                return false;
+            }
+            if (i > 0 && ids[i - 1] >= ids[i]) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Returns a new traffic record in which the traffic on each corridor c is
+     * the integer ((numerator * X) / denominator), where X is the traffic on c
+     * in this object.
+     * 
+     * @require numerator >= 0 && denominator > 0
+     * @ensure Returns a new (modifiable) traffic record holding this traffic
+     *         scaled by numerator / denominator, truncating each amount.
+     */
+    Traffic scale(int numerator, int denominator) {
+        Traffic result = new Traffic(); // the scaled traffic
+        result.ensureLength(size);
+        for (int i = 0; i < size; i++) {
+            // the scaled amount of traffic on corridors[i]
+            int amount = (numerator * amounts[i]) / denominator;
+            if (amount > 0) {
+                // ids stay in ascending order, so entries can be appended
+                result.ids[result.size] = ids[i];
+                result.corridors[result.size] = corridors[i];
+                result.amounts[result.size] = amount;
+                result.size++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the traffic on each corridor with traffic in
+     * extraTraffic would still be less than or equal to the capacity of that
+     * corridor if extraTraffic were added to this object, and false
+     * otherwise. Neither object is modified.
+     * 
+     * @require extraTraffic != null
+     * @ensure Returns true iff this.getTraffic(c) + extraTraffic.getTraffic(c)
+     *         <= c.getCapacity() for each corridor c with
+     *         extraTraffic.getTraffic(c) > 0.
+     */
+    boolean isSafeWith(Traffic extraTraffic) {
+        for (int i = 0, j = 0; j < extraTraffic.size; j++) {
+            while (i < size && ids[i] < extraTraffic.ids[j]) {
+                i++;
+            }
+            // the traffic on the jth corridor of extraTraffic, after adding
+            int amount = extraTraffic.amounts[j];
+            if (i < size && ids[i] == extraTraffic.ids[j]) {
+                amount += amounts[i];
+            }
+            if (amount > extraTraffic.corridors[j].getCapacity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the traffic on each corridor in this object is at least
+     * the traffic on that corridor in other, and false otherwise. (If so, any
+     * traffic that would be unsafe when added to other would also be unsafe
+     * when added to this object.)
+     * 
+     * @require other != null
+     * @ensure Returns true iff this.getTraffic(c) >= other.getTraffic(c) for
+     *         each corridor c.
+     */
+    boolean dominates(Traffic other) {
+        for (int i = 0, j = 0; j < other.size; j++) {
+            while (i < size && ids[i] < other.ids[j]) {
+                i++;
+            }
+            if (i == size || ids[i] != other.ids[j]
+                    || amounts[i] < other.amounts[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the greatest load (traffic divided by capacity) that any
+     * corridor with traffic in extraTraffic would carry if extraTraffic were
+     * added to this object, or LoadRatio.ZERO if extraTraffic has no traffic.
+     * Neither object is modified.
+     * 
+     * @require extraTraffic != null
+     * @ensure Returns the maximum, over each corridor c with
+     *         extraTraffic.getTraffic(c) > 0, of (this.getTraffic(c) +
+     *         extraTraffic.getTraffic(c)) / c.getCapacity().
+     */
+    LoadRatio peakLoadWith(Traffic extraTraffic) {
+        // the traffic and capacity of the most heavily loaded corridor
+        int peakAmount = 0;
+        int peakCapacity = 1;
+        for (int i = 0, j = 0; j < extraTraffic.size; j++) {
+            while (i < size && ids[i] < extraTraffic.ids[j]) {
+                i++;
+            }
+            // the traffic on the jth corridor of extraTraffic, after adding
+            int amount = extraTraffic.amounts[j];
+            if (i < size && ids[i] == extraTraffic.ids[j]) {
+                amount += amounts[i];
+            }
+            int capacity = extraTraffic.corridors[j].getCapacity();
+            if ((long) amount * peakCapacity > (long) peakAmount * capacity) {
+                peakAmount = amount;
+                peakCapacity = capacity;
+            }
+        }
+        return new LoadRatio(peakAmount, peakCapacity);
+    }
+
+    /**
+     * Returns a hash code for the traffic currently recorded by this object,
+     * that is consistent with sameTraffic.
+     * 
+     * @ensure Returns the same value for any two traffic records that are the
+     *         same according to sameTraffic, without creating any objects.
+     */
+    int trafficHashCode() {
+        final int prime = 31; // an odd base prime
+        int result = 1; // the hash code under construction
+        for (int i = 0; i < size; i++) {
+            // the entries are in ascending order of id, in every record
+            result = prime * result + corridors[i].hashCode();
+            result = prime * result + amounts[i];
+        }
+        return result;
+    }
+
+    /**
+     * Makes this traffic record unmodifiable, so that it can be safely shared.
+     * 
+     * @ensure Any later call to a method that would modify this object throws
+     *         an UnsupportedOperationException.
+     */
+    void makeUnmodifiable() {
+        unmodifiable = true;
+    }
+
+    /**
+     * Checks that this traffic record may be modified.
+     * 
+     * @throws UnsupportedOperationException
+     *             if this traffic record is unmodifiable
+     */
+    private void checkModifiable() {
+        if (unmodifiable) {
+            throw new UnsupportedOperationException(
+                    "This traffic record cannot be modified.");
+        }
+    }
+
+    /**
+     * Returns the position of the corridor with the given id in the arrays,
+     * if it has traffic, or (-(insertion point) - 1) otherwise.
+     * 
+     * @ensure Returns the index i of the corridor with the given id, if i <
+     *         size and ids[i] == id, or (-(insertion point) - 1) otherwise,
+     *         where the insertion point is the position at which the id would
+     *         be inserted to keep the ids in ascending order.
+     */
+    private int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Grows the arrays, if necessary, so that they can record traffic on at
+     * least length corridors.
+     * 
+     * @require length >= 0
+     * @ensure ids.length >= length and the first size entries of the arrays
+     *         are unchanged.
+     */
+    private void ensureLength(int length) {
+        if (length > ids.length) {
+            // the new length of the arrays
+            int newLength = Math.max(length, 2 * ids.length);
+            ids = Arrays.copyOf(ids, newLength);
+            corridors = Arrays.copyOf(corridors, newLength);
+            amounts = Arrays.copyOf(amounts, newLength);
+        }
+    }
+
 }
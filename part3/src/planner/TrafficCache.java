@@ -0,0 +1,116 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A bounded cache of the traffic generated by hosting events of different
+ * sizes at different venues.
+ * </p>
+ *
+ * <p>
+ * The traffic that a venue generates for an event depends only on the venue
+ * and the size of the event, and searches for allocations ask for the same
+ * traffic many times over. The cache keeps the most recently used traffic
+ * records, as unmodifiable Traffic objects that may be shared by all callers,
+ * and evicts the least recently used record once it holds MAX_ENTRIES of them.
+ * </p>
+ *
+ * <p>
+ * Venues are compared by identity, so equal venues that are different objects
+ * have separate entries.
+ * </p>
+ *
+ * <p>
+ * Every lookup takes a single lock on the cache, since even a hit reorders
+ * the least recently used list; a missing record is computed after releasing
+ * the lock, and the lock is taken again to add it. This is still a point of
+ * contention for threads that look up traffic at the same time. The searches
+ * avoid it by looking up the traffic of each event at each venue once, before
+ * they start (e.g. see AllocationSearch), so that their inner loops, which
+ * run in parallel in ParallelAllocator, never touch the cache. Code that
+ * looks up traffic repeatedly from several threads should do the same.
+ * </p>
+ */
+final class TrafficCache {
+
+    // the maximum number of traffic records held by the cache
+    private static final int MAX_ENTRIES = 16384;
+
+    // The cached traffic records, from least to most recently used
+    private static final Map<Key, Traffic> cache = new LinkedHashMap<Key,
+            Traffic>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Traffic> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * This class only provides static methods.
+     */
+    private TrafficCache() {
+    }
+
+    /**
+     * Returns the (unmodifiable) traffic generated by hosting an event of the
+     * given size at the given venue.
+     *
+     * @require venue != null && 0 < size <= venue.getCapacity()
+     * @ensure Returns an unmodifiable traffic record that is the same as
+     *         venue.getTraffic(event) for any event of the given size.
+     */
+    static Traffic getTraffic(Venue venue, int size) {
+        // the key for the venue and size
+        Key key = new Key(venue, size);
+        Traffic traffic; // the cached traffic record, if any
+        synchronized (cache) {
+            traffic = cache.get(key);
+        }
+        if (traffic != null) {
+            return traffic;
+        }
+        traffic = venue.computeTraffic(size);
+        traffic.makeUnmodifiable();
+        synchronized (cache) {
+            // keep the record of another thread that got here first, so that
+            // every caller shares the same one
+            Traffic cached = cache.putIfAbsent(key, traffic);
+            return (cached != null ? cached : traffic);
+        }
+    }
+
+    /**
+     * A venue and an event size, identifying one cached traffic record.
+     */
+    private static final class Key {
+
+        // the venue generating the traffic
+        private final Venue venue;
+        // the size of the event hosted at the venue
+        private final int size;
+
+        /**
+         * Creates a key for the given venue and event size.
+         */
+        Key(Venue venue, int size) {
+            this.venue = venue;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object; // the key to compare
+            return venue == other.venue && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(venue) + size;
+        }
+    }
+
+}
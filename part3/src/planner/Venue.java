@@ -1,5 +1,7 @@
 package planner;
 
+import java.io.*;
+
 /**
  * <p>
  * An immutable class representing a venue in the municipality.
@@ -35,6 +37,8 @@ public class Venue {
     // the traffic that will be generated by hosting an event of maximum
     // size at the venue
     private Traffic capacityTraffic;
+    // the hash code of the venue, computed once on construction
+    private int hash;
 
     /*
      * invariant:
@@ -46,7 +50,9 @@ public class Venue {
      * capacityTraffic !=null &&
      * 
      * for each traffic corridor c, capacityTraffic.getTraffic(c) is less than
-     * or equal to capacity
+     * or equal to capacity &&
+     * 
+     * hash == computeHashCode()
      */
 
     /**
@@ -90,6 +96,7 @@ public class Venue {
         this.name = name;
         this.capacity = capacity;
         this.capacityTraffic = new Traffic(capacityTraffic);
+        this.hash = computeHashCode();
     }
 
     /**
@@ -153,17 +160,65 @@ public class Venue {
      *             if the size of the event exceeds the capacity of the venue
      */
     public Traffic getTraffic(Event event) {
+        checkSize(event);
+        return computeTraffic(event.getSize());
+    }
+
+    /**
+     * <p>
+     * Returns the amount of traffic that would be generated by hosting the
+     * given event at this venue, as an unmodifiable traffic record.
+     * </p>
+     * 
+     * <p>
+     * The traffic returned is the same as that returned by getTraffic(event),
+     * but it may be shared with other callers, and any attempt to modify it
+     * will throw an UnsupportedOperationException. Traffic records are cached
+     * for recently used venues and event sizes (unlike those returned by
+     * getTraffic, which are computed afresh), so this method is cheaper than
+     * getTraffic when the same traffic is read many times (e.g. added to
+     * other traffic records).
+     * </p>
+     * 
+     * @param event
+     *            the event for which the traffic will be generated
+     * @return the unmodifiable traffic generated by hosting the given event at
+     *         this venue
+     * @throws NullPointerException
+     *             if event is null
+     * @throws IllegalArgumentException
+     *             if the size of the event exceeds the capacity of the venue
+     */
+    public Traffic getSharedTraffic(Event event) {
+        checkSize(event);
+        return TrafficCache.getTraffic(this, event.getSize());
+    }
+
+    /**
+     * Checks that this venue is large enough to host the given event.
+     * 
+     * @throws NullPointerException
+     *             if event is null
+     * @throws IllegalArgumentException
+     *             if the size of the event exceeds the capacity of the venue
+     */
+    private void checkSize(Event event) {
         if (event.getSize() > capacity) {
             throw new IllegalArgumentException(
                     "The size of the event cannot exceed the venue's capacity");
         }
-        Traffic result = new Traffic(); // the traffic generated by the event
-        for (Corridor c : capacityTraffic.getCorridorsWithTraffic()) {
-            int traffic = (event.getSize() * capacityTraffic.getTraffic(c))
-                    / capacity;
-            result.updateTraffic(c, traffic);
-        }
-        return result;
+    }
+
+    /**
+     * Returns a new traffic record holding the traffic that would be generated
+     * by hosting an event of the given size at this venue.
+     * 
+     * @require 0 < size <= capacity
+     * @ensure Returns the traffic generated by an event of the given size, as
+     *         defined by getTraffic.
+     */
+    Traffic computeTraffic(int size) {
+        return capacityTraffic.scale(size, capacity);
     }
 
     /**
@@ -182,9 +237,32 @@ public class Venue {
      */
     @Override
     public String toString() {
-        return name + " (" + capacity + ")" + System.getProperty(
-                "line.separator") + capacityTraffic.toString();
+        StringBuilder result = new StringBuilder(); // the representation
+        try {
+            appendTo(result);
+        } catch (IOException e) {
+            // a StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
 
+    /**
+     * Writes the string representation of this venue (as defined by
+     * toString) to the given output, without building the whole
+     * representation in memory.
+     * 
+     * @param out
+     *            the output to write the representation to
+     * @throws IOException
+     *             if out throws an IOException
+     * @throws NullPointerException
+     *             if out is null
+     */
+    public void appendTo(Appendable out) throws IOException {
+        out.append(name).append(" (").append(Integer.toString(capacity))
+                .append(")").append(System.getProperty("line.separator"));
+        capacityTraffic.appendTo(out);
     }
 
     /**
@@ -205,29 +283,69 @@ public class Venue {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (!(object instanceof Venue)) {
             return false;
         }
         Venue other = (Venue) object; // the venue to compare
-        return (name.equals(other.name) && capacity == other.capacity
+        return (hash == other.hash && capacity == other.capacity
+                && name.equals(other.name)
                 && capacityTraffic.sameTraffic(other.capacityTraffic));
     }
 
     @Override
     public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns true if the given venue has the same capacity as this venue, and
+     * generates the same traffic for an event of maximum size, so that the
+     * two venues can host exactly the same events, generating the same
+     * traffic (they may differ only in name).
+     * 
+     * @require other != null
+     * @ensure Returns true iff this.getCapacity() == other.getCapacity() and
+     *         this.getTraffic(e).sameTraffic(other.getTraffic(e)) for each
+     *         event e that this venue can host.
+     */
+    boolean isInterchangeableWith(Venue other) {
+        return capacity == other.capacity
+                && capacityTraffic.sameTraffic(other.capacityTraffic);
+    }
+
+    /**
+     * Returns a hash code for the capacity and capacity traffic of this venue,
+     * that is consistent with isInterchangeableWith.
+     * 
+     * @ensure Returns the same value for any two venues that are
+     *         interchangeable according to isInterchangeableWith.
+     */
+    int interchangeHashCode() {
+        return 31 * capacity + capacityTraffic.trafficHashCode();
+    }
+
+    /**
+     * Returns the hash code of this venue, computed from its name, capacity
+     * and capacity traffic.
+     * 
+     * @require name != null && capacityTraffic != null
+     * @ensure Returns the same value for any two venues that are equal
+     *         according to the equals method.
+     */
+    private int computeHashCode() {
         /*
          * We create a polynomial hash-code based on name and capacity and
-         * capacityTraffic.
-         * 
-         * We will cheat a bit here and use the fact that traffic objects that
-         * are the same according to the sameTraffic method will produce the
-         * same string representation. There might be neater ways to do this.
+         * capacityTraffic, hashing the traffic directly rather than through
+         * its string representation.
          */
         final int prime = 31; // an odd base prime
         int result = 1; // the hash code under construction
         result = prime * result + name.hashCode();
         result = prime * result + capacity;
-        result = prime * result + (capacityTraffic.toString()).hashCode();
+        result = prime * result + capacityTraffic.trafficHashCode();
         return result;
     }
 
@@ -258,7 +376,8 @@ public class Venue {
                 return false;
             }
         }
-        return true;
+        // the cached hash code must be up to date
+        return hash == computeHashCode();
     }
 
 }
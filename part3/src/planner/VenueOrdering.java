@@ -0,0 +1,74 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A strategy for choosing the order in which a search tries the venues for an
+ * event.
+ * </p>
+ *
+ * <p>
+ * The order does not change which allocations are safe, but trying the venues
+ * that leave the most room for the remaining events first makes it more
+ * likely that the first branches searched lead to a safe allocation.
+ * </p>
+ */
+public interface VenueOrdering {
+
+    /**
+     * Tries the venues in the order in which they are given.
+     */
+    VenueOrdering GIVEN = (event, venues) -> new ArrayList<>(venues);
+
+    /**
+     * <p>
+     * Tries the venues that put the least pressure on the traffic corridors
+     * first (venues with equal pressure are tried in the order in which they
+     * are given).
+     * </p>
+     *
+     * <p>
+     * The pressure of hosting an event at a venue is the sum, over each
+     * corridor c, of the fraction of the capacity of c that is used by the
+     * traffic generated by the event. Venues that cannot host the event are
+     * tried last.
+     * </p>
+     */
+    VenueOrdering LEAST_PRESSURE_FIRST = (event, venues) -> {
+        // the pressure of hosting the event at each venue that can host it
+        Map<Venue, Double> pressure = new IdentityHashMap<>();
+        for (Venue venue : venues) {
+            if (!venue.canHost(event)) {
+                pressure.put(venue, Double.POSITIVE_INFINITY);
+                continue;
+            }
+            Traffic traffic = venue.getSharedTraffic(event);
+            double sum = 0;
+            for (Corridor corridor : traffic.getCorridorsWithTraffic()) {
+                sum += (double) traffic.getTraffic(corridor) / corridor
+                        .getCapacity();
+            }
+            pressure.put(venue, sum);
+        }
+        List<Venue> result = new ArrayList<>(venues);
+        result.sort((v1, v2) -> Double.compare(pressure.get(v1), pressure.get(
+                v2)));
+        return result;
+    };
+
+    /**
+     * Returns the given venues in the order in which they should be tried for
+     * the given event.
+     *
+     * @param event
+     *            the event to be allocated
+     * @param venues
+     *            the venues that the event may be allocated to
+     * @return a new list containing each of the given venues exactly once, in
+     *         the order in which they should be tried
+     * @require event != null && venues != null && !venues.contains(null)
+     */
+    List<Venue> order(Event event, List<Venue> venues);
+
+}
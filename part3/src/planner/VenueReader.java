@@ -2,16 +2,21 @@ package planner;
 
 import java.io.*;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * <p>
  * Provides a method to read in a list of venues from a text file.
+ * </p>
+ * 
+ * <p>
+ * The file is read a line at a time by a LineReader, and each traffic line is
+ * split into its fields in place by FieldScanners, so that reading a large
+ * file creates few objects other than the venues, corridors and locations
+ * read from it.
+ * </p>
  */
 public class VenueReader {
 
-    // definition of an empty line
-    private final static String EMPTY_LINE = "";
-
     /**
      * <p>
      * Reads a text file called fileName that describes the venues in a
@@ -116,180 +121,168 @@ public class VenueReader {
      */
     public static List<Venue> read(String fileName) throws IOException,
             FormatException {
-        // scanner for reading the file a line at a time
-        Scanner in = new Scanner(new FileReader(fileName));
-        // the number of the line being read
-        AtomicInteger lineNumber = new AtomicInteger(0);
         // the venues that will be read from the file
         List<Venue> venues = new ArrayList<>();
+        // the same venues, for finding duplicates in constant time
+        Set<Venue> seen = new HashSet<>();
+        // scanners for splitting traffic lines, and their corridors, into
+        // fields (e.g. "l0, l1, 100: 50")
+        FieldScanner lineScanner = new FieldScanner(": ");
+        FieldScanner corridorScanner = new FieldScanner(", ");
 
-        // read venues one at a time from the file
-        while (in.hasNextLine()) {
-            // the name, capacity, and traffic of the venue being read
-            String name = readVenueName(lineNumber, in);
-            int capacity = readVenueCapacity(lineNumber, in);
-            Traffic capacityTraffic = readTraffic(lineNumber, in, capacity);
-            // the venue read
-            Venue venue = new Venue(name, capacity, capacityTraffic);
+        // reader for reading the file a line at a time
+        try (LineReader in = new LineReader(fileName)) {
+            // read venues one at a time from the file
+            while (in.hasNextLine()) {
+                // the name, capacity, and traffic of the venue being read
+                String name = readVenueName(in);
+                int capacity = readVenueCapacity(in);
+                Traffic capacityTraffic = readTraffic(in, lineScanner,
+                        corridorScanner, capacity);
+                // the venue read
+                Venue venue = new Venue(name, capacity, capacityTraffic);
 
-            if (venues.contains(venue)) {
-                throw new FormatException("Line " + lineNumber
-                        + ": duplicate venue detected.");
+                if (!seen.add(venue)) {
+                    throw new FormatException("Line " + in.getLineNumber()
+                            + ": duplicate venue detected.");
+                }
+                venues.add(venue);
             }
-            venues.add(venue);
         }
         return venues;
     }
 
     /**
-     * Consumes the next line from the scanner, returning the venue name read
+     * Consumes the next line from the reader, returning the venue name read
      * from that line.
      * 
      * @require in!=null && in is open for reading
-     * @ensure Consumes the next line from scanner, and returns the venue name
-     *         from that line (i.e. the whole line). The lineNumber is
-     *         incremented once for each line that is consumed from in.
+     * @ensure Consumes the next line from the reader, and returns the venue
+     *         name from that line (i.e. the whole line).
      * @throws FormatException
-     *             if there is no next line in the scanner, or the line is the
+     *             if there is no next line in the reader, or the line is the
      *             empty string "" (i.e. a venue name can't be the empty
      *             string). The exception has a message that identifies the
-     *             lineNumber given, and describes the nature of the error.
+     *             line number, and describes the nature of the error.
      */
-    private static String readVenueName(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
-        // the name of the venue to be read from the next line
-        String name = null;
-        if (in.hasNextLine()) {
-            name = in.nextLine();
-            lineNumber.incrementAndGet();
-        } else {
-            throw new FormatException("Line " + lineNumber
+    private static String readVenueName(LineReader in) throws IOException,
+            FormatException {
+        if (!in.hasNextLine()) {
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": venue name missing");
         }
-        if (name.equals("")) {
-            throw new FormatException("Line " + lineNumber
+        in.nextLine();
+        if (in.getLength() == 0) {
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": venue name cannot be the empty string");
         }
-        return name;
+        return in.getLineString();
     }
 
     /**
-     * Consumes the next line from the scanner, returning the venue capacity
+     * Consumes the next line from the reader, returning the venue capacity
      * read from that line.
      * 
      * @require in!=null && in is open for reading
-     * @ensure reads next line from scanner, and returns the venue capacity from
-     *         that line. The lineNumber is incremented once for each line that
-     *         is consumed from in.
+     * @ensure reads next line from the reader, and returns the venue capacity
+     *         from that line.
      * @throws FormatException
-     *             if there is no next line in the scanner, or the line does not
+     *             if there is no next line in the reader, or the line does not
      *             contain one positive integer denoting the venue capacity. The
-     *             exception has a message that identifies the lineNumber given,
-     *             and describes the nature of the error.
+     *             exception has a message that identifies the line number, and
+     *             describes the nature of the error.
      */
-    private static int readVenueCapacity(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
+    private static int readVenueCapacity(LineReader in) throws IOException,
+            FormatException {
         if (!in.hasNextLine()) {
-            throw new FormatException("Line " + lineNumber
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": venue capacity expected, but line is missing.");
         }
 
-        // the capacity to be read the next line from the scanner
+        // the capacity to be read the next line from the reader
         int capacity = 0;
         try {
-            // the line holding the capacity
-            String capacityString = in.nextLine();
-            lineNumber.incrementAndGet();
-            capacity = Integer.parseInt(capacityString);
+            in.nextLine();
+            capacity = Integer.parseInt(in.getLineString());
         } catch (NumberFormatException e) {
-            throw new FormatException("Line " + lineNumber
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": invalid venue capacity.");
         }
         if (capacity <= 0) {
-            throw new FormatException("Line " + lineNumber
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": capacity must be greater than or equal to zero.");
         }
         return capacity;
     }
 
     /**
-     * Consumes zero or more lines from the scanner, where each line denotes a
+     * Consumes zero or more lines from the reader, where each line denotes a
      * corridor object and its traffic, until an empty line is consumed. Returns
      * a traffic object containing the traffic read from each of the lines. Each
      * of the traffic lines is of the form "START, END, CAPACITY: TRAFFIC" (e.g.
      * "l0, l1, 100: 50").
      *
-     * @require in!=null && in is open for reading
-     * @ensure Consumes zero or more lines from the scanner, each denoting the
+     * @require in!=null && in is open for reading && lineScanner splits at
+     *          ": " && corridorScanner splits at ", "
+     * @ensure Consumes zero or more lines from the reader, each denoting the
      *         amount of traffic on different corridors, until an empty line is
-     *         consumed, and returns the traffic read from those lines. The
-     *         lineNumber is incremented once for each line that is consumed
-     *         from the scanner in.
+     *         consumed, and returns the traffic read from those lines.
      * @throws FormatException
      *             If any one of the traffic lines read are incorrectly
-     *             formatted; if the end of the scanner is reached before an
+     *             formatted; if the end of the reader is reached before an
      *             empty line is found; if the same corridor appears in more
      *             than one line; or if the traffic on a corridor exceeds the
      *             venue capacity given, or its capacity. The exception has a
-     *             message that identifies the lineNumber given, and describes
-     *             the nature of the error.
+     *             message that identifies the line number, and describes the
+     *             nature of the error.
      */
-    private static Traffic readTraffic(AtomicInteger lineNumber, Scanner in,
-            int venueCapacity) throws FormatException {
-        // the traffic read from the scanner
+    private static Traffic readTraffic(LineReader in, FieldScanner lineScanner,
+            FieldScanner corridorScanner, int venueCapacity)
+            throws IOException, FormatException {
+        // the traffic read from the reader
         Traffic capacityTraffic = new Traffic();
-        // the current line being read
-        String line = getNextLine(lineNumber, in);
-        while (!line.equals(EMPTY_LINE)) {
-            // scanner for that line
-            Scanner lineScanner = new Scanner(line);
-            lineScanner.useDelimiter(": ");
-            try {
-                // e.g. "l0, l1, 100: 50"
-                Corridor corridor = readCorridor(lineNumber, lineScanner);
-                int amount = readTraffic(lineNumber, lineScanner, corridor
-                        .getCapacity(), venueCapacity);
+        getNextLine(in);
+        while (in.getLength() != 0) {
+            // the number of the line being read
+            int lineNumber = in.getLineNumber();
+            lineScanner.reset(in.getLine(), 0, in.getLength());
+            // e.g. "l0, l1, 100: 50"
+            Corridor corridor = readCorridor(lineNumber, lineScanner,
+                    corridorScanner);
+            int amount = readTraffic(lineNumber, lineScanner, corridor
+                    .getCapacity(), venueCapacity);
 
-                if (lineScanner.hasNext()) {
-                    throw new FormatException("Line " + lineNumber
-                            + ": extra information on line.");
-                }
-                if (capacityTraffic.getTraffic(corridor) > 0) {
-                    throw new FormatException("Line " + lineNumber
-                            + ": corridor appears more than once.");
-                }
-                capacityTraffic.updateTraffic(corridor, amount);
-            } finally {
-                lineScanner.close();
+            if (lineScanner.hasNext()) {
+                throw new FormatException("Line " + lineNumber
+                        + ": extra information on line.");
+            }
+            if (capacityTraffic.getTraffic(corridor) > 0) {
+                throw new FormatException("Line " + lineNumber
+                        + ": corridor appears more than once.");
             }
-            line = getNextLine(lineNumber, in); // read the next line
+            capacityTraffic.updateTraffic(corridor, amount);
+            getNextLine(in); // read the next line
         }
         return capacityTraffic;
     }
 
     /**
-     * Consumes and returns the next line from the given scanner.
+     * Consumes the next line from the given reader.
      *
      * @require in!=null && in is open for reading
-     * @ensure Consumes and returns the next line from the given scanner. The
-     *         lineNumber is incremented once for each line that is consumed
-     *         from in.
+     * @ensure Consumes the next line from the given reader.
      * @throws FormatException
      *             If there is no next line to read from the input. The
-     *             exception has a message that identifies the lineNumber given,
-     *             and describes the nature of the error.
+     *             exception has a message that identifies the line number, and
+     *             describes the nature of the error.
      */
-    private static String getNextLine(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
-        String line = null;
-        if (in.hasNextLine()) {
-            line = in.nextLine();
-            lineNumber.incrementAndGet();
-        } else {
-            throw new FormatException("Line " + lineNumber
+    private static void getNextLine(LineReader in) throws IOException,
+            FormatException {
+        if (!in.hasNextLine()) {
+            throw new FormatException("Line " + in.getLineNumber()
                     + ": empty line expected to complete venue.");
         }
-        return line;
+        in.nextLine();
     }
 
     /**
@@ -297,42 +290,44 @@ public class VenueReader {
      * corridor object. The token denoting the corridor should be of the form
      * "START, END, CAPACITY" (e.g. "l0, l1, 100").
      * 
-     * @require lineScanner!=null && lineScanner is open for reading
+     * @require lineScanner!=null && corridorScanner!=null && corridorScanner
+     *          splits at ", "
      * @ensure Consumes the next token from the lineScanner and returns the
-     *         corridor represented by that token. lineNumber is unchanged by
-     *         this operation.
+     *         corridor represented by that token.
      * @throws FormatException
      *             If lineScanner doesn't have a next token, or if the corridor
      *             is incorrectly formatted. The exception has a message that
      *             identifies the lineNumber given, and describes the nature of
      *             the error.
      */
-    private static Corridor readCorridor(AtomicInteger lineNumber,
-            Scanner lineScanner) throws FormatException {
+    private static Corridor readCorridor(int lineNumber,
+            FieldScanner lineScanner, FieldScanner corridorScanner)
+            throws FormatException {
         if (!lineScanner.hasNext()) {
             throw new FormatException("Line " + lineNumber
                     + ": invalid corridor and traffic");
         }
-        // Comma-delimited scanner for reading the corridor
-        Scanner scanner = new Scanner(lineScanner.next());
-        scanner.useDelimiter(", ");
-        try {
-            String startName = (scanner.hasNext() ? scanner.next() : "");
-            String endName = (scanner.hasNext() ? scanner.next() : "");
-            int capacity = (scanner.hasNextInt() ? scanner.nextInt() : 0);
+        lineScanner.next();
+        // scan the fields of the corridor, in place
+        corridorScanner.reset(lineScanner.getLine(), lineScanner
+                .getTokenStart(), lineScanner.getTokenEnd());
+        String startName = (corridorScanner.hasNext() ? corridorScanner
+                .nextString() : "");
+        String endName = (corridorScanner.hasNext() ? corridorScanner
+                .nextString() : "");
+        int capacity = (corridorScanner.hasNextInt() ? corridorScanner
+                .nextInt() : 0);
 
-            if (startName.equals("") || endName.equals("") || capacity <= 0
-                    || startName.equals(endName) || scanner.hasNext()
-                    || startName.contains(":") || endName.contains(":")
-                    || startName.contains(",") || endName.contains(",")) {
-                throw new FormatException("Line " + lineNumber
-                        + ": invalid corridor.");
-            }
-            return new Corridor(new Location(startName), new Location(endName),
-                    capacity);
-        } finally {
-            scanner.close();
+        if (startName.equals("") || endName.equals("") || capacity <= 0
+                || startName.equals(endName) || corridorScanner.hasNext()
+                || startName.contains(":") || endName.contains(":")
+                || startName.contains(",") || endName.contains(",")) {
+            throw new FormatException("Line " + lineNumber
+                    + ": invalid corridor.");
         }
+        // share a single copy of equal locations and corridors
+        return CorridorRegistry.getCorridor(LocationPool.intern(startName),
+                LocationPool.intern(endName), capacity);
     }
 
     /**
@@ -342,10 +337,9 @@ public class VenueReader {
      * equal to corridorCapacity and the venueCapacity, with no proceeding or
      * trailing white space.
      * 
-     * @require lineScanner!=null && lineScanner is open for reading
+     * @require lineScanner!=null
      * @ensure Consumes the next token from the lineScanner and returns the
-     *         amount of traffic represented by that token. lineNumber is
-     *         unchanged by this operation.
+     *         amount of traffic represented by that token.
      * @throws FormatException
      *             If lineScanner doesn't have a next token, or if the token
      *             corresponding to the amount of traffic is incorrectly
@@ -353,9 +347,8 @@ public class VenueReader {
      *             identifies the lineNumber given, and describes the nature of
      *             the error.
      */
-    private static int readTraffic(AtomicInteger lineNumber,
-            Scanner lineScanner, int corridorCapacity, int venueCapacity)
-            throws FormatException {
+    private static int readTraffic(int lineNumber, FieldScanner lineScanner,
+            int corridorCapacity, int venueCapacity) throws FormatException {
         // the amount of traffic read from the next token
         if (!lineScanner.hasNextInt()) {
             throw new FormatException("Line " + lineNumber
@@ -0,0 +1,140 @@
+package planner;
+
+/**
+ * <p>
+ * Static methods for sets of venues represented as bitsets.
+ * </p>
+ *
+ * <p>
+ * A search numbers its venues 0 .. n - 1, and represents a set of them as a
+ * long[] of length (n + 63) / 64, in which venue v is a member of the set if
+ * and only if bit (v % 64) of element (v / 64) is set. Adding a venue to, or
+ * removing a venue from, a set is then a single bit operation, and the
+ * members common to two sets can be counted a word at a time.
+ * </p>
+ */
+final class VenueSet {
+
+    /**
+     * This class only provides static methods.
+     */
+    private VenueSet() {
+    }
+
+    /**
+     * Returns a new, empty set of venues numbered 0 .. size - 1.
+     *
+     * @require size >= 0
+     * @ensure Returns an empty set that can hold venues 0 .. size - 1.
+     */
+    static long[] empty(int size) {
+        return new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Returns a new set containing every venue numbered 0 .. size - 1.
+     *
+     * @require size >= 0
+     * @ensure Returns the set {0, 1, ..., size - 1}.
+     */
+    static long[] full(int size) {
+        long[] set = empty(size);
+        for (int v = 0; v < size; v++) {
+            add(set, v);
+        }
+        return set;
+    }
+
+    /**
+     * Returns true if venue v is a member of the given set.
+     *
+     * @require set != null && 0 <= v < 64 * set.length
+     */
+    static boolean contains(long[] set, int v) {
+        return (set[v >>> 6] & (1L << v)) != 0;
+    }
+
+    /**
+     * Returns true if venue v is a member of both of the given sets.
+     *
+     * @require first != null && second != null && 0 <= v < 64 *
+     *          first.length && 0 <= v < 64 * second.length
+     */
+    static boolean containsBoth(long[] first, long[] second, int v) {
+        return (first[v >>> 6] & second[v >>> 6] & (1L << v)) != 0;
+    }
+
+    /**
+     * Adds venue v to the given set.
+     *
+     * @require set != null && 0 <= v < 64 * set.length
+     * @ensure contains(set, v)
+     */
+    static void add(long[] set, int v) {
+        set[v >>> 6] |= (1L << v);
+    }
+
+    /**
+     * Removes venue v from the given set.
+     *
+     * @require set != null && 0 <= v < 64 * set.length
+     * @ensure !contains(set, v)
+     */
+    static void remove(long[] set, int v) {
+        set[v >>> 6] &= ~(1L << v);
+    }
+
+    /**
+     * Returns the number of venues in the given set.
+     *
+     * @require set != null
+     */
+    static int size(long[] set) {
+        int size = 0;
+        for (long word : set) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the least venue that is a member of both of the given sets, or
+     * -1 if there is no such venue.
+     *
+     * @require first != null && second != null && first.length ==
+     *          second.length
+     */
+    static int firstOfBoth(long[] first, long[] second) {
+        for (int i = 0; i < first.length; i++) {
+            long word = first[i] & second[i];
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the least venue in the given set that is greater than or equal
+     * to from, or -1 if there is no such venue.
+     *
+     * @require set != null && from >= 0
+     */
+    static int next(long[] set, int from) {
+        int i = from >>> 6; // the word holding from
+        if (i >= set.length) {
+            return -1;
+        }
+        long word = set[i] & (-1L << from); // ignore venues below from
+        while (true) {
+            if (word != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == set.length) {
+                return -1;
+            }
+            word = set[i];
+        }
+    }
+
+}
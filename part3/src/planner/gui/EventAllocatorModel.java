@@ -10,10 +10,17 @@ public class EventAllocatorModel {
 
     // A list of venues for this municipality
 	private List<Venue> venues;
-	// Map of Events and assigned Venues
+	// Map of Events and assigned Venues (events are keyed by name and size)
 	private Map<Event, Venue> allocations;
+	// Map of allocated Venues and their Events (the inverse of allocations)
+	private Map<Venue, Event> hostedEvents;
 	// Current traffic caused by allocation
 	private Traffic traffic;
+	// Number of traffic updates between checks against a full recompute
+	// (zero if traffic is never checked)
+	private int consistencyCheckInterval;
+	// Number of traffic updates since traffic was last checked
+	private int updatesSinceCheck;
 
     /**
      * Initialises the model for the event allocator program.
@@ -21,6 +28,7 @@ public class EventAllocatorModel {
     public EventAllocatorModel() {
     	venues = new ArrayList<>();
     	allocations = new HashMap<>();
+    	hostedEvents = new HashMap<>();
     	traffic = new Traffic();
     }
 
@@ -62,10 +70,17 @@ public class EventAllocatorModel {
      *          Size of event to be removed.
      */
     public void removeAllocation(String name, int size) {
-        // Remove from allocation if name and size matches an event allocated.
-        allocations.keySet().removeIf(e ->
-                e.getName().equals(name) && e.getSize() == size);
-        updateTraffic();
+        // No event allocated can have an invalid name or size.
+        if (!validEventName(name) || !validEventSize(size)) {
+            return;
+        }
+        // Events are equal iff their names and sizes are equal.
+        Event event = new Event(name, size);
+        Venue venue = allocations.get(event);
+        if (venue != null) {
+            unallocate(event, venue);
+            trafficUpdated();
+        }
     }
 
     /**
@@ -100,27 +115,111 @@ public class EventAllocatorModel {
      * v) Traffic is safe
      * 
      * That is, allocation should only occur after the requirements have been
-     * confirmed.
+     * confirmed. Each venue hosts at most one event, so the venue must not be
+     * allocated an event either.
      *
+     * @require !duplicateEvent(event) && !duplicateVenue(venue)
      * @param event
      *          The Event for allocation.
      * @param venue
      *          The Venue allocated to Event.
+     * @throws IllegalArgumentException
+     *          if the event or the venue is already allocated, or the venue
+     *          cannot host the event. (The model is left unchanged.)
      */
     public void allocateEvent(Event event, Venue venue) {
+        if (duplicateEvent(event) || duplicateVenue(venue)) {
+            throw new IllegalArgumentException(
+                    "The event or the venue is already allocated.");
+        }
+        // the traffic caused by the allocation
+        Traffic eventTraffic = venue.getSharedTraffic(event);
         allocations.put(event, venue);
-        updateTraffic();
+        hostedEvents.put(venue, event);
+        traffic.addTraffic(eventTraffic);
+        trafficUpdated();
     }
 
     /**
-     * Updates traffic after each new allocation or each removal of allocation.
+     * Removes the allocation of event to venue, and subtracts the traffic
+     * that it caused.
      *
+     * @require allocations.get(event) == venue
+     */
+    private void unallocate(Event event, Venue venue) {
+        // the traffic caused by the allocation
+        Traffic eventTraffic = venue.getSharedTraffic(event);
+        allocations.remove(event);
+        hostedEvents.remove(venue);
+        traffic.removeTraffic(eventTraffic);
+    }
+
+    /**
+     * Recomputes traffic from scratch, from every current allocation.
+     *
+     * Traffic is kept up to date as allocations are made and removed, so this
+     * is only needed to recover from a failed consistency check.
      */
     public void updateTraffic() {
-        traffic = new Traffic();
+        traffic = computeTraffic();
+        updatesSinceCheck = 0;
+    }
+
+    /**
+     * Sets how often traffic is checked against a full recompute from every
+     * current allocation. The check is made after every interval allocations
+     * and removals, or never if interval is zero (the default).
+     *
+     * @require interval >= 0
+     * @param interval
+     *          Number of traffic updates between checks, or zero.
+     */
+    public void setConsistencyCheckInterval(int interval) {
+        consistencyCheckInterval = interval;
+        updatesSinceCheck = 0;
+    }
+
+    /**
+     * Checks if current traffic is the same as the traffic recomputed from
+     * every current allocation.
+     *
+     * @return true if traffic is consistent with allocations, else false.
+     */
+    public boolean trafficIsConsistent() {
+        return traffic.sameTraffic(computeTraffic());
+    }
+
+    /**
+     * Returns the traffic caused by every current allocation, computed from
+     * scratch.
+     */
+    private Traffic computeTraffic() {
+        Traffic total = new Traffic();
         allocations.forEach((event, venue) -> {
-            traffic.addTraffic(venue.getTraffic(event));
+            total.addTraffic(venue.getSharedTraffic(event));
         });
+        return total;
+    }
+
+    /**
+     * Records an update of traffic, checking it against a full recompute if
+     * a check is due.
+     *
+     * @throws IllegalStateException
+     *          if a check is made and traffic is not consistent with
+     *          allocations. (Traffic is recomputed before throwing.)
+     */
+    private void trafficUpdated() {
+        if (consistencyCheckInterval == 0
+                || ++updatesSinceCheck < consistencyCheckInterval) {
+            return;
+        }
+        updatesSinceCheck = 0;
+        if (!trafficIsConsistent()) {
+            updateTraffic();
+            throw new IllegalStateException(
+                    "Traffic is inconsistent with allocations.");
+        }
     }
 
     /* Methods to check validity of event and allocation */
@@ -170,7 +269,7 @@ public class EventAllocatorModel {
      * @return true if venue already has allocation, else false
      */
     public boolean duplicateVenue(Venue venue) {
-        return allocations.containsValue(venue);
+        return hostedEvents.containsKey(venue);
     }
 
     /**
@@ -197,7 +296,7 @@ public class EventAllocatorModel {
      */
     public boolean trafficIsSafe(Event event, Venue venue) {
     	Traffic trafficCheck = new Traffic(traffic);
-    	trafficCheck.addTraffic(venue.getTraffic(event));
+    	trafficCheck.addTraffic(venue.getSharedTraffic(event));
     	return trafficCheck.isSafe();
     }
 
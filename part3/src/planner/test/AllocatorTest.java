@@ -0,0 +1,807 @@
+package planner.test;
+
+import planner.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.lang.management.ManagementFactory;
+import javax.management.*;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.Before;
+
+/**
+ * Basic tests for the search methods of the {@link Allocator} class.
+ */
+public class AllocatorTest {
+
+    // locations to test with
+    private Location[] locations;
+    // corridors to test with
+    private Corridor[] corridors;
+
+    /**
+     * This method is run by JUnit before each test to initialise instance
+     * variables locations and corridors.
+     */
+    @Before
+    public void setUp() {
+        locations = new Location[4];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new Location("l" + i);
+        }
+        corridors = new Corridor[3];
+        corridors[0] = new Corridor(locations[0], locations[1], 100);
+        corridors[1] = new Corridor(locations[1], locations[2], 60);
+        corridors[2] = new Corridor(locations[2], locations[3], 150);
+    }
+
+    /**
+     * An empty list of events can always be allocated.
+     */
+    @Test
+    public void testNoEvents() {
+        List<Event> events = new ArrayList<>();
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 10, 0, 5));
+
+        Map<Event, Venue> allocation = Allocator.findAllocation(events,
+                venues);
+        Assert.assertNotNull(allocation);
+        Assert.assertTrue(allocation.isEmpty());
+    }
+
+    /**
+     * An event that no venue can host cannot be allocated.
+     */
+    @Test
+    public void testNoCapableVenue() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 10, 0, 5));
+
+        Assert.assertNull(Allocator.findAllocation(events, venues));
+    }
+
+    /**
+     * The only safe allocation places the large event at the venue that
+     * does not load the narrow corridor.
+     */
+    @Test
+    public void testTrafficForcesChoice() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 100));
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 1, 50));
+        venues.add(venue("v1", 100, 1, 50));
+        venues.add(venue("v2", 100, 2, 100));
+
+        Map<Event, Venue> allocation = Allocator.findAllocation(events,
+                venues);
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(2, allocation.size());
+        Assert.assertTrue(allocation.containsValue(venues.get(2)));
+        Assert.assertTrue(isSafe(allocation));
+        // the venues given are left unchanged
+        Assert.assertEquals(3, venues.size());
+    }
+
+    /**
+     * No allocation exists if every pair of venues overloads a corridor.
+     */
+    @Test
+    public void testUnsafeTraffic() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 100));
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 1, 50));
+        venues.add(venue("v1", 100, 1, 50));
+
+        Assert.assertNull(Allocator.findAllocation(events, venues));
+        Assert.assertNull(Allocator.allocate(events, venues));
+    }
+
+    /**
+     * Every search agrees with allocate, and with the list of every safe
+     * allocation, on small random instances. On odd trials the events and
+     * venues are of a few kinds, so that many of them are interchangeable.
+     */
+    @Test(timeout = 60000)
+    public void testSearchesAgreeWithAllocate() {
+        EventOrdering[] eventOrderings = { EventOrdering.GIVEN,
+                EventOrdering.LARGEST_FIRST,
+                EventOrdering.FEWEST_VENUES_FIRST };
+        VenueOrdering[] venueOrderings = { VenueOrdering.GIVEN,
+                VenueOrdering.LEAST_PRESSURE_FIRST };
+        int[] capacities = { 0, 1, AllocationSearch.DEFAULT_NOGOOD_CAPACITY };
+        CoverageObjective[] objectives = { CoverageObjective.EVENT_COUNT,
+                CoverageObjective.TOTAL_SIZE };
+        Random random = new Random(2017);
+        for (int trial = 0; trial < 200; trial++) {
+            int eventCount = random.nextInt(5);
+            int venueCount = 1 + random.nextInt(6);
+            List<Event> events = (trial % 2 == 0 ? randomEvents(random,
+                    eventCount) : similarEvents(random, eventCount));
+            List<Venue> venues = (trial % 2 == 0 ? randomVenues(random,
+                    venueCount) : similarVenues(random, venueCount));
+            Map<Event, Venue> expected = Allocator.allocate(events, venues);
+
+            // every safe allocation, each exactly once
+            List<Map<Event, Venue>> all = Allocator.allocationsInParallel(
+                    events, venues);
+            Set<Map<Event, Venue>> allocations = new HashSet<>(all);
+            Assert.assertEquals(all.size(), allocations.size());
+            Assert.assertEquals(expected == null, all.isEmpty());
+            for (Map<Event, Venue> allocation : all) {
+                assertAllocates(events, allocation);
+            }
+            if (expected != null) {
+                Assert.assertTrue(allocations.contains(expected));
+            }
+
+            assertAgrees(expected, events, Allocator.findAllocation(events,
+                    venues));
+            assertAgrees(expected, events, Allocator
+                    .allocateWithForwardChecking(events, venues));
+            assertAgrees(expected, events, Allocator.findAllocationInParallel(
+                    events, venues));
+            SearchResult result = Allocator.findAllocationWithin(events,
+                    venues, 60000, Long.MAX_VALUE);
+            Assert.assertTrue(result.isComplete());
+            assertAgrees(expected, events, result.getAllocation());
+            for (EventOrdering eventOrdering : eventOrderings) {
+                for (VenueOrdering venueOrdering : venueOrderings) {
+                    for (int capacity : capacities) {
+                        for (boolean symmetryBreaking : new boolean[] { false,
+                                true }) {
+                            AllocationSearch search = new AllocationSearch(
+                                    events, venues, eventOrdering,
+                                    venueOrdering);
+                            search.setNogoodCapacity(capacity);
+                            search.setSymmetryBreaking(symmetryBreaking);
+                            assertAgrees(expected, events, search
+                                    .findAllocation());
+                        }
+                    }
+                }
+            }
+
+            Map<Event, Venue> leastLoaded = Allocator
+                    .findLeastLoadedAllocation(events, venues);
+            assertAgrees(expected, events, leastLoaded);
+            for (Map<Event, Venue> allocation : all) {
+                Assert.assertTrue(comparePeakLoads(leastLoaded,
+                        allocation) <= 0);
+            }
+
+            List<Map<Event, Venue>> sequential = Allocator.streamAllocations(
+                    events, venues).collect(Collectors.toList());
+            Assert.assertEquals(all.size(), sequential.size());
+            Assert.assertEquals(allocations, new HashSet<>(sequential));
+            List<Map<Event, Venue>> parallel = Allocator.streamAllocations(
+                    events, venues).parallel().collect(Collectors.toList());
+            Assert.assertEquals(all.size(), parallel.size());
+            Assert.assertEquals(allocations, new HashSet<>(parallel));
+            Assert.assertEquals(Math.min(2, all.size()), Allocator
+                    .streamAllocations(events, venues).limit(2).count());
+
+            List<AllocationView> views = Allocator.streamAllocationViews(
+                    events, venues).collect(Collectors.toList());
+            Set<Map<Event, Venue>> viewed = new HashSet<>();
+            for (AllocationView view : views) {
+                viewed.add(view.toMap());
+            }
+            Assert.assertEquals(all.size(), views.size());
+            Assert.assertEquals(allocations, viewed);
+            Assert.assertEquals(all.size(), Allocator
+                    .allocationViewsInParallel(events, venues).size());
+
+            for (CoverageObjective objective : objectives) {
+                Map<Event, Venue> actual = Allocator.findMaximumCoverage(
+                        events, venues, objective);
+                Assert.assertTrue(events.containsAll(actual.keySet()));
+                Assert.assertEquals(actual.size(), new HashSet<>(actual
+                        .values()).size());
+                Assert.assertTrue(isSafe(actual));
+                Assert.assertEquals(bestCoverage(events, venues, objective),
+                        coverage(actual.keySet(), objective));
+            }
+        }
+    }
+
+    /**
+     * A search that allocate could never finish completes quickly, both when
+     * the events just fit and when they cannot.
+     */
+    @Test(timeout = 5000)
+    public void testLargeSearch() {
+        List<Event> events = equalEvents(15, 20);
+
+        Map<Event, Venue> allocation = Allocator.findAllocation(events,
+                tightVenues(12));
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(new HashSet<>(events), allocation.keySet());
+        Assert.assertEquals(15, new HashSet<>(allocation.values()).size());
+        Assert.assertTrue(isSafe(allocation));
+
+        Assert.assertNull(Allocator.findAllocation(events, tightVenues(13)));
+    }
+
+    /**
+     * The forward-checking search finishes quickly on searches that allocate
+     * could never finish.
+     */
+    @Test(timeout = 5000)
+    public void testForwardCheckingLargeSearch() {
+        List<Event> events = equalEvents(15, 20);
+        Map<Event, Venue> allocation = Allocator.allocateWithForwardChecking(
+                events, tightVenues(12));
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(new HashSet<>(events), allocation.keySet());
+        Assert.assertEquals(15, new HashSet<>(allocation.values()).size());
+        Assert.assertTrue(isSafe(allocation));
+
+        // the last event fits no venue, which allocate only finds out after
+        // trying every allocation of the others, but forward checking sees
+        // at once
+        events.set(14, new Event("e14", 21));
+        Assert.assertNull(Allocator.allocateWithForwardChecking(events,
+                tightVenues(12)));
+    }
+
+    /**
+     * The parallel searches find exactly the safe allocations: here, the two
+     * ways of placing the events at the venue that does not load the narrow
+     * corridor and at one of the two that do.
+     */
+    @Test
+    public void testParallelFindsEverySafeAllocation() {
+        List<Event> events = equalEvents(2, 100);
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 1, 50));
+        venues.add(venue("v1", 100, 1, 50));
+        venues.add(venue("v2", 100, 2, 100));
+
+        List<Map<Event, Venue>> all = Allocator.allocationsInParallel(events,
+                venues);
+        Assert.assertEquals(4, all.size());
+        Assert.assertEquals(4, new HashSet<>(all).size());
+        for (Map<Event, Venue> allocation : all) {
+            assertAllocates(events, allocation);
+            Assert.assertTrue(allocation.containsValue(venues.get(2)));
+        }
+        Map<Event, Venue> allocation = Allocator.findAllocationInParallel(
+                events, venues);
+        Assert.assertTrue(all.contains(allocation));
+    }
+
+    /**
+     * The orderings produce the documented orders, and the search tries the
+     * events and venues in those orders.
+     */
+    @Test
+    public void testOrderings() {
+        // e1 fits only v0 and v2, and every venue fits e0 and e2 (so the
+        // events that fit the fewest venues are also the largest)
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 10));
+        events.add(new Event("e1", 50));
+        events.add(new Event("e2", 30));
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 1, 30)); // pressure 15/60 for e1
+        venues.add(venue("v1", 40, 0, 5)); // cannot host e1
+        venues.add(venue("v2", 100, 2, 30)); // pressure 15/150 for e1
+
+        Assert.assertEquals(events, EventOrdering.GIVEN.order(events,
+                venues));
+        Assert.assertEquals(Arrays.asList(events.get(1), events.get(2), events
+                .get(0)), EventOrdering.LARGEST_FIRST.order(events, venues));
+        Assert.assertEquals(Arrays.asList(events.get(1), events.get(2), events
+                .get(0)), EventOrdering.FEWEST_VENUES_FIRST.order(events,
+                        venues));
+        Assert.assertEquals(venues, VenueOrdering.GIVEN.order(events.get(1),
+                venues));
+        Assert.assertEquals(Arrays.asList(venues.get(2), venues.get(0), venues
+                .get(1)), VenueOrdering.LEAST_PRESSURE_FIRST.order(events.get(
+                        1), venues));
+
+        // the first event in the order is allocated to its first venue
+        AllocationSearch search = new AllocationSearch(events, venues,
+                EventOrdering.GIVEN, VenueOrdering.GIVEN);
+        Assert.assertSame(venues.get(0), search.findAllocation().get(events
+                .get(0)));
+        search = new AllocationSearch(events, venues,
+                EventOrdering.LARGEST_FIRST,
+                VenueOrdering.LEAST_PRESSURE_FIRST);
+        Assert.assertSame(venues.get(2), search.findAllocation().get(events
+                .get(1)));
+        // in the given orders, e0 goes to v0, e1 to v2 and e2 to v1 without
+        // backtracking: one node for each event, and one for the root
+        search = new AllocationSearch(events, venues, EventOrdering.GIVEN,
+                VenueOrdering.GIVEN);
+        search.setNogoodCapacity(0);
+        search.setSymmetryBreaking(false);
+        search.findAllocation();
+        Assert.assertEquals(4, search.getNodeCount());
+    }
+
+    /**
+     * The statistics returned with an allocation describe the search, and are
+     * only added to totals when a search is given them; the shared totals are
+     * published through JMX once registered.
+     */
+    @Test
+    public void testSearchStatistics() throws Exception {
+        SolverMetrics.register();
+        SolverMetrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SolverMetrics.OBJECT_NAME);
+        SolverMetrics metrics = new SolverMetrics();
+        // the events fit when only one of them loads the narrow corridor
+        List<Event> events = equalEvents(2, 100);
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 1, 50));
+        venues.add(venue("v1", 100, 1, 50));
+        for (boolean solvable : new boolean[] { false, true }) {
+            if (solvable) {
+                venues.add(venue("v2", 100, 2, 100));
+            }
+            long nodesBefore = (Long) server.getAttribute(name, "NodeCount");
+            long searchesBefore = metrics.getSearchCount();
+            SearchResult result = Allocator.findAllocationWithStatistics(
+                    events, venues);
+            SearchStatistics statistics = result.getStatistics();
+            Assert.assertEquals(solvable, result.getAllocation() != null);
+            if (solvable) {
+                Assert.assertTrue(isSafe(result.getAllocation()));
+                Assert.assertEquals(2, statistics.getMaxDepth());
+            } else {
+                Assert.assertEquals(1, statistics.getMaxDepth());
+            }
+            Assert.assertTrue(statistics.getNodeCount() > 0);
+            Assert.assertTrue(statistics.getWallTimeNanos() >= 0);
+            Assert.assertEquals(searchesBefore, metrics.getSearchCount());
+
+            // a search given the totals adds its statistics to them
+            AllocationSearch search = new AllocationSearch(events, venues,
+                    EventOrdering.FEWEST_VENUES_FIRST,
+                    VenueOrdering.LEAST_PRESSURE_FIRST);
+            search.setMetrics(metrics);
+            search.findAllocation();
+            Assert.assertEquals(searchesBefore + 1, metrics.getSearchCount());
+            Assert.assertEquals(statistics.getNodeCount(), search
+                    .getStatistics().getNodeCount());
+
+            // the shared totals only change when statistics are recorded
+            Assert.assertEquals(nodesBefore, (long) (Long) server
+                    .getAttribute(name, "NodeCount"));
+            SolverMetrics.getInstance().record(statistics);
+            Assert.assertEquals(nodesBefore + statistics.getNodeCount(),
+                    (long) (Long) server.getAttribute(name, "NodeCount"));
+        }
+
+        // one venue is too small for the event, the other's traffic is unsafe
+        events = Arrays.asList(new Event("e", 80));
+        venues = Arrays.asList(venue("small", 10, 0, 5), venue("busy", 100, 1,
+                100));
+        SearchStatistics statistics = Allocator.findAllocationWithStatistics(
+                events, venues).getStatistics();
+        Assert.assertEquals(1, statistics.getNodeCount());
+        Assert.assertEquals(1, statistics.getCanHostCuts());
+        Assert.assertEquals(1, statistics.getTrafficCuts());
+        Assert.assertEquals(0, statistics.getMaxDepth());
+    }
+
+    /**
+     * A bounded search stops at its limits with the best safe partial
+     * allocation.
+     */
+    @Test(timeout = 30000)
+    public void testBoundedSearch() {
+        // thirteen events that fit anywhere, but only twelve venues
+        List<Event> events = equalEvents(13, 1);
+        List<Venue> venues = equalVenues(12);
+        // (the venues and events are all alike, so this is only hard when
+        // equivalent branches are explored)
+        AllocationSearch search = new AllocationSearch(events, venues);
+        search.setSymmetryBreaking(false);
+        SearchResult result = search.findResult(Long.MAX_VALUE, 1000);
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(1000, result.getStatistics().getNodeCount());
+        Assert.assertEquals(12, result.getAllocation().size());
+        Assert.assertEquals(12, new HashSet<>(result.getAllocation().values())
+                .size());
+        Assert.assertTrue(isSafe(result.getAllocation()));
+
+        // without nogoods, the search cannot finish in a reasonable time
+        search.setNogoodCapacity(0);
+        result = search.findResult(100, Long.MAX_VALUE);
+        SearchStatistics statistics = result.getStatistics();
+        Assert.assertFalse(result.isComplete());
+        Assert.assertTrue(statistics.getWallTimeNanos() > 100000000L);
+        Assert.assertTrue(statistics.getNodeCount() > 0);
+        Assert.assertEquals(12, statistics.getMaxDepth());
+        Assert.assertEquals(12, result.getAllocation().size());
+    }
+
+    /**
+     * Nogoods cut the repeated dead ends of a search with no safe allocation.
+     */
+    @Test
+    public void testNogoodsCutRepeatedDeadEnds() {
+        // seven events that fit anywhere, but only six venues
+        List<Event> events = equalEvents(7, 1);
+        List<Venue> venues = equalVenues(6);
+
+        // every partial allocation of the first k events is visited: the sum
+        // over k of 6! / (6 - k)! nodes
+        AllocationSearch search = new AllocationSearch(events, venues);
+        search.setSymmetryBreaking(false);
+        search.setNogoodCapacity(0);
+        Assert.assertNull(search.findAllocation());
+        Assert.assertEquals(1957, search.getNodeCount());
+        Assert.assertEquals(0, search.getStatistics().getNogoodCuts());
+
+        // the same venues are left after allocating the first k events in k!
+        // ways, so all but the first of these are cut
+        search.setNogoodCapacity(AllocationSearch.DEFAULT_NOGOOD_CAPACITY);
+        Assert.assertNull(search.findAllocation());
+        Assert.assertTrue(search.getStatistics().getNogoodCuts() > 0);
+        Assert.assertTrue(search.getNodeCount() < 1957);
+    }
+
+    /**
+     * Symmetry breaking skips the branches that differ only by swapping
+     * interchangeable venues or events of equal size, and finishes quickly
+     * when there are many such branches.
+     */
+    @Test(timeout = 5000)
+    public void testSymmetryBreakingSkipsEquivalentBranches() {
+        // seven equal events, but only six interchangeable venues
+        List<Event> events = equalEvents(7, 1);
+        List<Venue> venues = equalVenues(6);
+
+        AllocationSearch search = new AllocationSearch(events, venues);
+        search.setNogoodCapacity(0);
+        search.setSymmetryBreaking(false);
+        Assert.assertNull(search.findAllocation());
+        Assert.assertEquals(1957, search.getNodeCount());
+        Assert.assertEquals(0, search.getStatistics().getSymmetryCuts());
+
+        // only the first of the 6 - k venues left is tried for the event at
+        // depth k, so the other 5 - k are skipped
+        search.setSymmetryBreaking(true);
+        Assert.assertNull(search.findAllocation());
+        Assert.assertEquals(7, search.getNodeCount());
+        Assert.assertEquals(15, search.getStatistics().getSymmetryCuts());
+
+        // twenty-one events of two sizes, but only twenty venues of three kinds
+        events = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            events.add(new Event("e" + i, 5 + 3 * (i % 2)));
+        }
+        venues = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            venues.add(venue("v" + i, 10, i % 3, 1 + i % 3));
+        }
+        SearchResult result = Allocator.findAllocationWithStatistics(events,
+                venues);
+        Assert.assertNull(result.getAllocation());
+        Assert.assertTrue(result.getStatistics().getSymmetryCuts() > 0);
+    }
+
+    /**
+     * The first few allocations of a search with a huge number of safe
+     * allocations are found without enumerating the rest.
+     */
+    @Test(timeout = 5000)
+    public void testStreamIsLazy() {
+        List<Event> events = new ArrayList<>();
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            events.add(new Event("e" + i, 10));
+            venues.add(venue("v" + i, 100, 0, 1));
+        }
+        // 12! safe allocations, of which only the first 1000 are produced
+        Assert.assertEquals(1000, Allocator.streamAllocations(events, venues)
+                .limit(1000).count());
+        Iterator<Map<Event, Venue>> iterator = Allocator.streamAllocations(
+                events, venues).iterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals(12, iterator.next().size());
+    }
+
+    /**
+     * Allocation views number events and venues by their positions in the
+     * lists given, and turn into the same maps as the allocations found.
+     */
+    @Test
+    public void testAllocationViews() {
+        // e0 only fits v1, and e1 fits both venues
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 10));
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 20, 0, 5));
+        venues.add(venue("v1", 100, 2, 5));
+
+        List<AllocationView> views = Allocator.streamAllocationViews(events,
+                venues).collect(Collectors.toList());
+        Assert.assertEquals(1, views.size());
+        AllocationView view = views.get(0);
+        Assert.assertEquals(2, view.size());
+        Assert.assertSame(events.get(0), view.getEvent(0));
+        Assert.assertSame(events.get(1), view.getEvent(1));
+        Assert.assertEquals(1, view.getVenueOrdinal(0));
+        Assert.assertEquals(0, view.getVenueOrdinal(1));
+        Assert.assertSame(venues.get(1), view.getVenue(0));
+        Assert.assertSame(venues.get(1), view.getVenue(events.get(0)));
+        Assert.assertSame(venues.get(0), view.getVenue(events.get(1)));
+        Assert.assertNull(view.getVenue(new Event("absent", 1)));
+        Assert.assertEquals(Allocator.findAllocation(events, venues), view
+                .toMap());
+        List<AllocationView> parallel = Allocator.allocationViewsInParallel(
+                events, venues);
+        Assert.assertEquals(1, parallel.size());
+        Assert.assertEquals(view.toMap(), parallel.get(0).toMap());
+    }
+
+    /**
+     * The least loaded allocation has the lowest peak corridor load of all of
+     * the safe allocations.
+     */
+    @Test
+    public void testLeastLoadedIsOptimal() {
+        // at capacity, the peak loads of the pairs of venues are 90/100 for
+        // {v0, v1}, 60/100 for {v0, v2} and 60/150 for {v1, v2}
+        List<Event> events = equalEvents(2, 100);
+        List<Venue> venues = new ArrayList<>();
+        venues.add(venue("v0", 100, 0, 60));
+        venues.add(venue("v1", 100, 0, 30));
+        venues.add(venue("v2", 100, 2, 60));
+
+        Map<Event, Venue> allocation = Allocator.findLeastLoadedAllocation(
+                events, venues);
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(new HashSet<>(venues.subList(1, 3)), new HashSet<>(
+                allocation.values()));
+        Assert.assertEquals(0, comparePeakLoads(allocation, Collections
+                .singletonMap(events.get(0), venues.get(2))));
+    }
+
+    /**
+     * The maximum-coverage allocation leaves out the smallest event when one
+     * event too many fits anywhere, and is safe even when the search stops
+     * early.
+     */
+    @Test
+    public void testMaximumCoverage() {
+        // thirteen events that fit anywhere, but only twelve venues
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            events.add(new Event("e" + i, 1 + i));
+        }
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            venues.add(venue("v" + i, 20, 0, 1));
+        }
+        SearchResult result = Allocator.findMaximumCoverageWithin(events,
+                venues, CoverageObjective.TOTAL_SIZE, 60000, Long.MAX_VALUE);
+        Assert.assertTrue(result.isComplete());
+        Assert.assertFalse(result.getAllocation().containsKey(events.get(0)));
+        Assert.assertEquals(12, result.getAllocation().size());
+        result = Allocator.findMaximumCoverageWithin(events, venues,
+                CoverageObjective.TOTAL_SIZE, 60000, 5);
+        Assert.assertFalse(result.isComplete());
+        Assert.assertTrue(isSafe(result.getAllocation()));
+    }
+
+    /**
+     * Returns the greatest coverage under objective of any subset of events
+     * that has a safe allocation to venues.
+     */
+    private long bestCoverage(List<Event> events, List<Venue> venues,
+            CoverageObjective objective) {
+        long best = 0;
+        for (int subset = 0; subset < (1 << events.size()); subset++) {
+            List<Event> chosen = new ArrayList<>();
+            for (int i = 0; i < events.size(); i++) {
+                if ((subset & (1 << i)) != 0) {
+                    chosen.add(events.get(i));
+                }
+            }
+            if (Allocator.findAllocation(chosen, venues) != null) {
+                best = Math.max(best, coverage(chosen, objective));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the coverage of the given events under objective.
+     */
+    private long coverage(Collection<Event> events,
+            CoverageObjective objective) {
+        long coverage = 0;
+        for (Event event : events) {
+            coverage += objective.weight(event);
+        }
+        return coverage;
+    }
+
+    /**
+     * Returns a venue with the given name and capacity that, at capacity,
+     * puts the given amount of traffic on corridors[corridor].
+     */
+    private Venue venue(String name, int capacity, int corridor, int amount) {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[corridor], amount);
+        return new Venue(name, capacity, traffic);
+    }
+
+    /**
+     * Returns a list of count distinct events of the given size.
+     */
+    private List<Event> equalEvents(int count, int size) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event("e" + i, size));
+        }
+        return events;
+    }
+
+    /**
+     * Returns 30 venues of capacity 20: 15 that each put 10 on corridors[0]
+     * (so at most 10 of them can be used together) and 15 that each put
+     * amount on corridors[1]. Fifteen events of size 20 can be allocated to
+     * them exactly when amount <= 12, since corridors[1] has capacity 60.
+     */
+    private List<Venue> tightVenues(int amount) {
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            venues.add(venue("a" + i, 20, 0, 10));
+        }
+        for (int i = 0; i < 15; i++) {
+            venues.add(venue("b" + i, 20, 1, amount));
+        }
+        return venues;
+    }
+
+    /**
+     * Returns a list of count distinct venues that each put traffic 1 on
+     * corridors[0], and can host events of size up to 10.
+     */
+    private List<Venue> equalVenues(int count) {
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            venues.add(venue("v" + i, 10, 0, 1));
+        }
+        return venues;
+    }
+
+    /**
+     * Returns a list of count distinct events of three sizes.
+     */
+    private List<Event> similarEvents(Random random, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event("e" + i, 10 * (1 + random.nextInt(3))));
+        }
+        return events;
+    }
+
+    /**
+     * Returns a list of count distinct venues of three kinds, where venues of
+     * the same kind are interchangeable.
+     */
+    private List<Venue> similarVenues(Random random, int count) {
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(3);
+            venues.add(venue("v" + i, 15 + 10 * kind, kind, 10 + kind));
+        }
+        return venues;
+    }
+
+    /**
+     * Returns a list of count distinct events with random sizes.
+     */
+    private List<Event> randomEvents(Random random, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event("e" + i, 1 + random.nextInt(100)));
+        }
+        return events;
+    }
+
+    /**
+     * Returns a list of count distinct venues with random capacities and
+     * random traffic on the test corridors.
+     */
+    private List<Venue> randomVenues(Random random, int count) {
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int capacity = 20 + random.nextInt(100);
+            Traffic traffic = new Traffic();
+            for (Corridor corridor : corridors) {
+                if (random.nextBoolean()) {
+                    traffic.updateTraffic(corridor, random.nextInt(Math.min(
+                            capacity, corridor.getCapacity()) / 2 + 1));
+                }
+            }
+            venues.add(new Venue("v" + i, capacity, traffic));
+        }
+        return venues;
+    }
+
+    /**
+     * Compares the peak corridor loads (traffic / capacity) of the traffic
+     * caused by the two allocations, exactly.
+     */
+    private int comparePeakLoads(Map<Event, Venue> first,
+            Map<Event, Venue> second) {
+        long[] firstPeak = peakLoad(first);
+        long[] secondPeak = peakLoad(second);
+        return Long.compare(firstPeak[0] * secondPeak[1], secondPeak[0]
+                * firstPeak[1]);
+    }
+
+    /**
+     * Returns the peak corridor load of the traffic caused by the given
+     * allocation, as a fraction {traffic, capacity}.
+     */
+    private long[] peakLoad(Map<Event, Venue> allocation) {
+        Traffic traffic = new Traffic();
+        for (Map.Entry<Event, Venue> entry : allocation.entrySet()) {
+            traffic.addTraffic(entry.getValue().getTraffic(entry.getKey()));
+        }
+        long[] peak = { 0, 1 };
+        for (Corridor corridor : traffic.getCorridorsWithTraffic()) {
+            long amount = traffic.getTraffic(corridor);
+            if (amount * peak[1] > peak[0] * corridor.getCapacity()) {
+                peak[0] = amount;
+                peak[1] = corridor.getCapacity();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Asserts that actual is an allocation exactly when expected is, and that
+     * if it is, it is a safe allocation of the given events.
+     */
+    private void assertAgrees(Map<Event, Venue> expected, List<Event> events,
+            Map<Event, Venue> actual) {
+        Assert.assertEquals(expected == null, actual == null);
+        if (actual != null) {
+            assertAllocates(events, actual);
+        }
+    }
+
+    /**
+     * Asserts that the given allocation is a safe allocation of the given
+     * events to distinct venues.
+     */
+    private void assertAllocates(List<Event> events,
+            Map<Event, Venue> allocation) {
+        Assert.assertEquals(new HashSet<>(events), allocation.keySet());
+        Assert.assertEquals(events.size(), new HashSet<>(allocation.values())
+                .size());
+        Assert.assertTrue(isSafe(allocation));
+    }
+
+    /**
+     * Returns true if the traffic caused by the given allocation is safe.
+     */
+    private boolean isSafe(Map<Event, Venue> allocation) {
+        Traffic traffic = new Traffic();
+        for (Map.Entry<Event, Venue> entry : allocation.entrySet()) {
+            Assert.assertTrue(entry.getValue().canHost(entry.getKey()));
+            traffic.addTraffic(entry.getValue().getTraffic(entry.getKey()));
+        }
+        return traffic.isSafe();
+    }
+
+}
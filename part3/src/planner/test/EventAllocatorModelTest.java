@@ -0,0 +1,165 @@
+package planner.test;
+
+import planner.*;
+import planner.gui.EventAllocatorModel;
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.Before;
+
+/**
+ * Basic tests for the allocations and traffic kept by the
+ * {@link EventAllocatorModel} class.
+ */
+public class EventAllocatorModelTest {
+
+    // corridors to test with
+    private Corridor[] corridors;
+    // venues to test with
+    private List<Venue> venues;
+    // the model under test
+    private EventAllocatorModel model;
+
+    /**
+     * This method is run by JUnit before each test to initialise instance
+     * variables corridors, venues and model.
+     */
+    @Before
+    public void setUp() {
+        Location[] locations = new Location[4];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new Location("l" + i);
+        }
+        corridors = new Corridor[3];
+        for (int i = 0; i < corridors.length; i++) {
+            corridors[i] = new Corridor(locations[i], locations[i + 1], 1000);
+        }
+        Random random = new Random(2011);
+        venues = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Traffic traffic = new Traffic();
+            for (Corridor corridor : corridors) {
+                traffic.updateTraffic(corridor, 1 + random.nextInt(99));
+            }
+            venues.add(new Venue("v" + i, 100, traffic));
+        }
+        model = new EventAllocatorModel();
+        model.setVenues(venues);
+        model.setConsistencyCheckInterval(1);
+    }
+
+    /**
+     * Allocating and then removing an event leaves no traffic.
+     */
+    @Test
+    public void testAllocateAndRemove() {
+        Event event = new Event("e0", 37);
+        model.allocateEvent(event, venues.get(0));
+        Assert.assertTrue(model.getAllocatedTraffic().sameTraffic(venues
+                .get(0).getTraffic(event)));
+
+        model.removeAllocation("e0", 37);
+        Assert.assertTrue(model.getAllocations().isEmpty());
+        Assert.assertTrue(model.getAllocatedTraffic().sameTraffic(
+                new Traffic()));
+    }
+
+    /**
+     * Duplicate checks and removals find allocations by event and by venue.
+     */
+    @Test
+    public void testLookups() {
+        Event event = new Event("e0", 37);
+        model.allocateEvent(event, venues.get(0));
+        Assert.assertTrue(model.duplicateEvent(new Event("e0", 37)));
+        Assert.assertFalse(model.duplicateEvent(new Event("e0", 38)));
+        Assert.assertTrue(model.duplicateVenue(venues.get(0)));
+        Assert.assertFalse(model.duplicateVenue(venues.get(1)));
+
+        // removals must match both the name and the size
+        model.removeAllocation("e0", 38);
+        model.removeAllocation("e1", 37);
+        model.removeAllocation("", 37);
+        Assert.assertEquals(1, model.getAllocations().size());
+
+        // removing the event frees its venue for another allocation
+        model.removeAllocation("e0", 37);
+        Assert.assertFalse(model.duplicateVenue(venues.get(0)));
+        model.allocateEvent(event, venues.get(1));
+        Assert.assertTrue(model.duplicateVenue(venues.get(1)));
+        model.removeAllocation("e0", 37);
+        Assert.assertFalse(model.duplicateVenue(venues.get(1)));
+        Assert.assertTrue(model.getAllocations().isEmpty());
+    }
+
+    /**
+     * An event that is already allocated, or a venue that already hosts an
+     * event, cannot be allocated again, and the model is left unchanged.
+     */
+    @Test
+    public void testAllocateRequiresFreeEventAndVenue() {
+        Event event = new Event("e0", 37);
+        model.allocateEvent(event, venues.get(0));
+        Traffic traffic = model.getAllocatedTraffic();
+
+        try {
+            model.allocateEvent(new Event("e0", 37), venues.get(1));
+            Assert.fail("Event allocated twice");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            model.allocateEvent(new Event("e1", 37), venues.get(0));
+            Assert.fail("Venue allocated twice");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            model.allocateEvent(new Event("e2", 101), venues.get(2));
+            Assert.fail("Event allocated to a venue that cannot host it");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertEquals(Collections.singletonMap(event, venues.get(0)),
+                model.getAllocations());
+        Assert.assertFalse(model.duplicateVenue(venues.get(1)));
+        Assert.assertFalse(model.duplicateVenue(venues.get(2)));
+        Assert.assertTrue(model.getAllocatedTraffic().sameTraffic(traffic));
+        Assert.assertTrue(model.trafficIsConsistent());
+    }
+
+    /**
+     * Traffic stays equal to a full recompute over a long mix of allocations
+     * and removals, including re-allocations of the same event after it has
+     * been removed.
+     */
+    @Test
+    public void testTrafficStaysConsistent() {
+        Random random = new Random(2012);
+        for (int step = 0; step < 2000; step++) {
+            String name = "e" + random.nextInt(6);
+            int size = 1 + random.nextInt(3);
+            Event event = new Event(name, size);
+            Venue venue = venues.get(random.nextInt(venues.size()));
+            if (random.nextInt(3) == 0 || model.duplicateEvent(event)
+                    || model.duplicateVenue(venue)) {
+                model.removeAllocation(name, size);
+            } else {
+                model.allocateEvent(event, venue);
+            }
+            Assert.assertTrue(model.trafficIsConsistent());
+        }
+        // each venue hosts at most one event
+        Map<Event, Venue> allocations = model.getAllocations();
+        Assert.assertEquals(allocations.size(), new HashSet<>(allocations
+                .values()).size());
+
+        Traffic expected = new Traffic();
+        for (Map.Entry<Event, Venue> entry : model.getAllocations()
+                .entrySet()) {
+            expected.addTraffic(entry.getValue().getTraffic(entry.getKey()));
+        }
+        Assert.assertTrue(model.getAllocatedTraffic().sameTraffic(expected));
+    }
+
+}
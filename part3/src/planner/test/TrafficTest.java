@@ -0,0 +1,341 @@
+package planner.test;
+
+import planner.*;
+import java.io.*;
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Basic tests for the string representations written by the
+ * {@link Traffic} and {@link Venue} classes.
+ */
+public class TrafficTest {
+
+    // Correct line separator for executing machine
+    private final static String LINE_SEPARATOR = System.getProperty(
+            "line.separator");
+
+    /**
+     * Corridors are written in their natural ordering, whatever order they
+     * were added in.
+     */
+    @Test
+    public void testNaturalOrdering() {
+        Location a = new Location("a");
+        Location b = new Location("b");
+        Location c = new Location("c");
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(new Corridor(b, c, 20), 5);
+        traffic.updateTraffic(new Corridor(a, c, 10), 6);
+        traffic.updateTraffic(new Corridor(a, b, 30), 7);
+        traffic.updateTraffic(new Corridor(a, b, 15), 8);
+
+        String expected = "Corridor a to b (15): 8" + LINE_SEPARATOR
+                + "Corridor a to b (30): 7" + LINE_SEPARATOR
+                + "Corridor a to c (10): 6" + LINE_SEPARATOR
+                + "Corridor b to c (20): 5" + LINE_SEPARATOR;
+        Assert.assertEquals(expected, traffic.toString());
+        Assert.assertEquals("", new Traffic().toString());
+    }
+
+    /**
+     * A large record is streamed to an output exactly as toString renders it.
+     */
+    @Test
+    public void testAppendTo() throws IOException {
+        Traffic traffic = new Traffic();
+        for (int i = 0; i < 5000; i++) {
+            traffic.updateTraffic(new Corridor(new Location("s" + i),
+                    new Location("t" + (i % 7)), 100), 1 + i % 50);
+        }
+        Venue venue = new Venue("v", 100, traffic);
+
+        StringWriter out = new StringWriter();
+        venue.appendTo(out);
+        Assert.assertEquals(venue.toString(), out.toString());
+        Assert.assertEquals("v (100)" + LINE_SEPARATOR + traffic.toString(),
+                out.toString());
+    }
+
+    /**
+     * Corridors are inserted and removed at the front, middle and end of a
+     * record, and the record grows past its initial capacity.
+     */
+    @Test
+    public void testUpdateTraffic() {
+        Corridor[] corridors = corridors(10);
+        Traffic traffic = new Traffic();
+        // insert at the end, then the front, then the middle
+        traffic.updateTraffic(corridors[5], 5);
+        traffic.updateTraffic(corridors[9], 9);
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[3], 3);
+        traffic.updateTraffic(corridors[7], 7);
+        Assert.assertTrue(traffic.checkInvariant());
+        Assert.assertEquals(5, traffic.getCorridorsWithTraffic().size());
+
+        // grow past the initial capacity of the arrays
+        for (int i = 0; i < corridors.length; i++) {
+            traffic.updateTraffic(corridors[i], 1);
+            Assert.assertTrue(traffic.checkInvariant());
+        }
+        Assert.assertEquals(corridors.length,
+                traffic.getCorridorsWithTraffic().size());
+        Assert.assertEquals(11, traffic.getTraffic(corridors[0]));
+        Assert.assertEquals(1, traffic.getTraffic(corridors[1]));
+
+        // remove from the front, the middle and the end
+        traffic.updateTraffic(corridors[0], -11);
+        traffic.updateTraffic(corridors[5], -6);
+        traffic.updateTraffic(corridors[9], -10);
+        Assert.assertTrue(traffic.checkInvariant());
+        Assert.assertEquals(7, traffic.getCorridorsWithTraffic().size());
+        Assert.assertEquals(0, traffic.getTraffic(corridors[0]));
+        Assert.assertEquals(0, traffic.getTraffic(corridors[5]));
+        Assert.assertEquals(0, traffic.getTraffic(corridors[9]));
+        Assert.assertEquals(8, traffic.getTraffic(corridors[7]));
+
+        // a negative update is rejected and leaves the record unchanged
+        Traffic copy = new Traffic(traffic);
+        try {
+            traffic.updateTraffic(corridors[1], -2);
+            Assert.fail("Negative traffic accepted");
+        } catch (InvalidTrafficException e) {
+            // expected
+        }
+        Assert.assertTrue(traffic.sameTraffic(copy));
+        Assert.assertTrue(traffic.checkInvariant());
+    }
+
+    /**
+     * Traffic is found by corridor equality: a corridor equal to one with
+     * traffic, but constructed separately, has the same traffic, and a
+     * corridor created after the record has none.
+     */
+    @Test
+    public void testEqualAndNewCorridors() {
+        Location a = new Location("a");
+        Location b = new Location("b");
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(new Corridor(a, b, 30), 7);
+
+        Assert.assertEquals(7, traffic.getTraffic(new Corridor(
+                new Location("a"), new Location("b"), 30)));
+        traffic.updateTraffic(new Corridor(a, b, 30), -7);
+        Assert.assertEquals(0, traffic.getTraffic(new Corridor(a, b, 30)));
+        Assert.assertTrue(traffic.getCorridorsWithTraffic().isEmpty());
+
+        // a corridor that has never been seen before
+        Corridor fresh = new Corridor(new Location("testEqualAndNew"), b, 1);
+        Assert.assertEquals(0, traffic.getTraffic(fresh));
+        traffic.updateTraffic(fresh, 1);
+        Assert.assertEquals(1, traffic.getTraffic(fresh));
+        Assert.assertTrue(traffic.checkInvariant());
+    }
+
+    /**
+     * Adding and removing whole records interleaves their corridors, and a
+     * record can be added to and removed from itself.
+     */
+    @Test
+    public void testAddAndRemoveTraffic() {
+        Corridor[] corridors = corridors(9);
+        Traffic even = new Traffic();
+        Traffic odd = new Traffic();
+        for (int i = 0; i < corridors.length; i++) {
+            (i % 2 == 0 ? even : odd).updateTraffic(corridors[i], i + 1);
+        }
+        Traffic evenCopy = new Traffic(even);
+        Traffic oddCopy = new Traffic(odd);
+
+        Traffic total = new Traffic(even);
+        total.addTraffic(odd);
+        Assert.assertTrue(total.checkInvariant());
+        for (int i = 0; i < corridors.length; i++) {
+            Assert.assertEquals(i + 1, total.getTraffic(corridors[i]));
+        }
+        // the parameter is not changed, or shared
+        Assert.assertTrue(odd.sameTraffic(oddCopy));
+        total.removeTraffic(even);
+        Assert.assertTrue(total.sameTraffic(odd));
+        Assert.assertTrue(total.checkInvariant());
+        total.updateTraffic(corridors[1], 1);
+        Assert.assertTrue(odd.sameTraffic(oddCopy));
+
+        // a record added to itself doubles, and removed from itself empties
+        even.addTraffic(even);
+        Assert.assertTrue(even.checkInvariant());
+        for (int i = 0; i < corridors.length; i += 2) {
+            Assert.assertEquals(2 * (i + 1), even.getTraffic(corridors[i]));
+        }
+        even.removeTraffic(evenCopy);
+        Assert.assertTrue(even.sameTraffic(evenCopy));
+        even.removeTraffic(even);
+        Assert.assertTrue(even.checkInvariant());
+        Assert.assertTrue(even.sameTraffic(new Traffic()));
+        Assert.assertTrue(even.getCorridorsWithTraffic().isEmpty());
+    }
+
+    /**
+     * A removal that would leave any corridor with negative traffic is
+     * rejected, leaving the record unchanged.
+     */
+    @Test
+    public void testRemoveTrafficRollback() {
+        Corridor[] corridors = corridors(6);
+        Traffic traffic = new Traffic();
+        for (int i = 0; i < corridors.length; i++) {
+            traffic.updateTraffic(corridors[i], 5);
+        }
+        Traffic copy = new Traffic(traffic);
+
+        // every corridor can be removed but the last
+        Traffic tooMuch = new Traffic();
+        for (int i = 0; i < corridors.length; i++) {
+            tooMuch.updateTraffic(corridors[i], i < corridors.length - 1 ? 5
+                    : 6);
+        }
+        try {
+            traffic.removeTraffic(tooMuch);
+            Assert.fail("Negative traffic accepted");
+        } catch (InvalidTrafficException e) {
+            // expected
+        }
+        Assert.assertTrue(traffic.sameTraffic(copy));
+        Assert.assertTrue(traffic.checkInvariant());
+
+        // traffic on a corridor that this record does not use
+        Traffic other = new Traffic();
+        other.updateTraffic(corridors[0], 1);
+        other.updateTraffic(new Corridor(new Location("testRemove"),
+                new Location("other"), 10), 1);
+        try {
+            traffic.removeTraffic(other);
+            Assert.fail("Negative traffic accepted");
+        } catch (InvalidTrafficException e) {
+            // expected
+        }
+        Assert.assertTrue(traffic.sameTraffic(copy));
+        Assert.assertTrue(traffic.checkInvariant());
+    }
+
+    /**
+     * Records are the same if they have the same traffic on each corridor,
+     * however they were built.
+     */
+    @Test
+    public void testSameTraffic() {
+        Corridor[] corridors = corridors(6);
+        Traffic forward = new Traffic();
+        Traffic backward = new Traffic();
+        for (int i = 0; i < corridors.length; i++) {
+            forward.updateTraffic(corridors[i], i + 1);
+            backward.updateTraffic(corridors[corridors.length - 1 - i],
+                    corridors.length - i);
+        }
+        Assert.assertTrue(forward.sameTraffic(backward));
+        Assert.assertTrue(backward.sameTraffic(forward));
+        Assert.assertTrue(forward.sameTraffic(forward));
+
+        backward.updateTraffic(corridors[2], 1);
+        Assert.assertFalse(forward.sameTraffic(backward));
+        backward.updateTraffic(corridors[2], -1);
+        Assert.assertTrue(forward.sameTraffic(backward));
+
+        // same amounts, but on a different corridor
+        forward.updateTraffic(corridors[0], -1);
+        backward.updateTraffic(corridors[1], -1);
+        Assert.assertFalse(forward.sameTraffic(backward));
+        Assert.assertFalse(forward.sameTraffic(new Traffic()));
+        Assert.assertTrue(new Traffic().sameTraffic(new Traffic()));
+    }
+
+    /**
+     * Adding and checking in one pass agrees with addTraffic, and with isSafe
+     * when the record was safe before. It only checks the corridors with
+     * traffic in the record added, so it ignores unsafe corridors that the
+     * addition does not change.
+     */
+    @Test
+    public void testAddAndCheckSafe() {
+        Corridor[] corridors = corridors(8);
+        Random random = new Random(2013);
+        // the number of trials with an unsafe record, and with a safe one
+        // made unsafe
+        int unsafeBases = 0;
+        int unsafeAdditions = 0;
+        for (int trial = 0; trial < 2000; trial++) {
+            // a sum of two records may be unsafe
+            Traffic base = randomTraffic(random, corridors);
+            base.addTraffic(randomTraffic(random, corridors));
+            Traffic extra = randomTraffic(random, corridors);
+            Traffic expected = new Traffic(base);
+            expected.addTraffic(extra);
+            // whether each corridor changed by the addition is safe after it
+            boolean changedSafe = true;
+            for (Corridor corridor : extra.getCorridorsWithTraffic()) {
+                changedSafe &= (expected.getTraffic(corridor) <= corridor
+                        .getCapacity());
+            }
+
+            Traffic actual = new Traffic(base);
+            Assert.assertEquals(changedSafe, actual.addAndCheckSafe(extra));
+            Assert.assertTrue(actual.sameTraffic(expected));
+            Assert.assertTrue(actual.checkInvariant());
+            if (base.isSafe()) {
+                Assert.assertEquals(expected.isSafe(), changedSafe);
+                unsafeAdditions += (changedSafe ? 0 : 1);
+            } else {
+                unsafeBases++;
+            }
+        }
+        Assert.assertTrue(unsafeBases > 0 && unsafeAdditions > 0);
+
+        // an unsafe corridor that is not added to is not checked
+        Traffic base = new Traffic();
+        base.updateTraffic(corridors[0], 101);
+        Traffic extra = new Traffic();
+        extra.updateTraffic(corridors[1], 100);
+        Assert.assertTrue(base.addAndCheckSafe(extra));
+        Assert.assertFalse(base.isSafe());
+        // but an unsafe corridor that is added to is
+        extra.updateTraffic(corridors[0], 1);
+        Assert.assertFalse(base.addAndCheckSafe(extra));
+        // as is a safe corridor made unsafe by the addition
+        base = new Traffic();
+        base.updateTraffic(corridors[2], 60);
+        extra = new Traffic();
+        extra.updateTraffic(corridors[2], 41);
+        Assert.assertFalse(base.addAndCheckSafe(extra));
+    }
+
+    /**
+     * Returns a random traffic record on some of the given corridors, with
+     * amounts that may exceed their capacities.
+     */
+    private Traffic randomTraffic(Random random, Corridor[] corridors) {
+        Traffic traffic = new Traffic();
+        for (Corridor corridor : corridors) {
+            if (random.nextInt(3) == 0) {
+                traffic.updateTraffic(corridor, 1 + random.nextInt(
+                        corridor.getCapacity() * 3 / 4));
+            }
+        }
+        return traffic;
+    }
+
+    /**
+     * Returns the given number of distinct corridors, sharing a start
+     * location.
+     */
+    private Corridor[] corridors(int number) {
+        Location start = new Location("start");
+        Corridor[] result = new Corridor[number];
+        for (int i = 0; i < number; i++) {
+            result[i] = new Corridor(start, new Location("end" + i), 100);
+        }
+        return result;
+    }
+
+}
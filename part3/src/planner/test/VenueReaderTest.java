@@ -0,0 +1,493 @@
+package planner.test;
+
+import java.util.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import planner.*;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Basic tests for the {@link VenueReader} implementation class.
+ */
+public class VenueReaderTest {
+
+    // Correct line separator for executing machine
+    private final static String LINE_SEPARATOR = System.getProperty(
+            "line.separator");
+    // The directory holding the input files, relative to part3
+    private final static String DIRECTORY = "src/planner/test/";
+
+    // A folder for input files written by the tests, deleted after each test
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test reading from a file where there are no venues.
+     */
+    @Test
+    public void testCorrectlyFormattedZeroVenues() throws Exception {
+        // string representations of the venues that we expect from the file
+        List<String> expectedVenues = new ArrayList<>();
+        // the actual venues read from the file
+        List<Venue> actualVenues = VenueReader.read(DIRECTORY
+                + "read_01_correctlyFormatted_zeroVenues.txt");
+        // check that the expected and actual venues read are the same
+        checkVenues(expectedVenues, actualVenues);
+    }
+
+    /**
+     * Test reading from a file where there is one typical venue.
+     */
+    @Test
+    public void testCorrectlyFormattedOneVenue() throws Exception {
+        // string representations of the venues that we expect from the file
+        List<String> expectedVenues = new ArrayList<>();
+        expectedVenues.add("The Zoo (93)" + LINE_SEPARATOR
+                + "Corridor City to Royal Queensland Show - EKKA (400): 51"
+                + LINE_SEPARATOR + "Corridor City to St. Lucia (500): 7"
+                + LINE_SEPARATOR + "Corridor Valley to City (300): 71"
+                + LINE_SEPARATOR);
+
+        // the actual venues read from the file
+        List<Venue> actualVenues = VenueReader.read(DIRECTORY
+                + "read_02_correctlyFormatted_oneVenue.txt");
+        // check that the expected and actual venues read are the same
+        checkVenues(expectedVenues, actualVenues);
+    }
+
+    /**
+     * Test reading from a file where there are many venues.
+     * 
+     * Note that one of the venues doesn't generate any traffic -- that's OK.
+     */
+    @Test
+    public void testCorrectlyFormattedManyVenues() throws Exception {
+        // string representations of the venues that we expect from the file
+        List<String> expectedVenues = new ArrayList<>();
+
+        expectedVenues.add("The Gabba (200)" + LINE_SEPARATOR
+                + "Corridor l1 to l2 (200): 150" + LINE_SEPARATOR
+                + "Corridor l2 to l3 (100): 50" + LINE_SEPARATOR);
+
+        expectedVenues.add("Tivoli (50)" + LINE_SEPARATOR);
+
+        expectedVenues.add("Suncorp Stadium (100)" + LINE_SEPARATOR
+                + "Corridor l0 to l1 (100): 25" + LINE_SEPARATOR
+                + "Corridor l1 to l2 (200): 70" + LINE_SEPARATOR);
+
+        // the actual venues read from the file
+        List<Venue> actualVenues = VenueReader.read(DIRECTORY
+                + "read_03_correctlyFormatted_manyVenues.txt");
+        // check that the expected and actual venues read are the same
+        checkVenues(expectedVenues, actualVenues);
+    }
+
+    /**
+     * Test reading from a file where the traffic specified for a corridor is
+     * incorrect.
+     */
+    @Test
+    public void testIncorrectlyFormattedCorridorTraffic() throws Exception {
+        // Error on line 4: traffic exceeds venue capacity
+        try {
+            VenueReader.read(DIRECTORY + "read_04_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+
+        // Error on line 5: traffic exceeds corridor capacity
+        try {
+            VenueReader.read(DIRECTORY + "read_05_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+
+        // Error on line 4: traffic is missing
+        try {
+            VenueReader.read(DIRECTORY + "read_06_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+    }
+
+    /**
+     * Test reading from a file where a corridor in the traffic of a venue has
+     * an error.
+     */
+    @Test
+    public void testIncorrectlyFormattedCorridor() throws Exception {
+        // Error on line 6: same corridor appears more than once in traffic
+        try {
+            VenueReader.read(DIRECTORY + "read_07_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+
+        // Error on line 4: incorrectly formatted corridor - END is ""
+        try {
+            VenueReader.read(DIRECTORY + "read_08_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+
+    }
+
+    /**
+     * Test reading from a file where a venue's name is invalid.
+     */
+    @Test
+    public void testIncorrectlyFormattedVenueName() throws Exception {
+        // Error on line 6: venue name cannot be ""
+        try {
+            VenueReader.read(DIRECTORY + "read_09_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+    }
+
+    /**
+     * Test reading from a file where a venue's capacity is invalid.
+     */
+    @Test
+    public void testIncorrectlyFormattedVenueCapacity() throws Exception {
+        // Error on line 7: venue capacity is invalid
+        try {
+            VenueReader.read(DIRECTORY + "read_10_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+    }
+
+    /**
+     * Test reading from a file where a venue does not have an empty line at the
+     * end.
+     */
+    @Test
+    public void testIncorrectlyFormattedVenueMissingEmptyLine()
+            throws Exception {
+        // Error on line 9: empty line expected to complete venue
+        try {
+            VenueReader.read(DIRECTORY + "read_11_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+    }
+
+    /**
+     * Test reading from a file that contains the same description of a venue
+     * twice.
+     */
+    @Test
+    public void testIncorrectlyFormattedDuplicateVenues() throws Exception {
+        // Error found when line 10 reached: duplicate venue detected
+        try {
+            VenueReader.read(DIRECTORY + "read_12_incorrectlyFormatted.txt");
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+            // System.out.println(e.getMessage()); // Uncomment to check message
+        }
+    }
+
+    /**
+     * Lines terminated by "\r\n" are read as if they were terminated by
+     * "\n", including a terminator split across two reads of the file.
+     */
+    @Test
+    public void testCarriageReturnLineFeed() throws Exception {
+        List<Venue> expected = VenueReader.read(DIRECTORY
+                + "read_03_correctlyFormatted_manyVenues.txt");
+        String contents = new String(Files.readAllBytes(Paths.get(DIRECTORY
+                + "read_03_correctlyFormatted_manyVenues.txt")),
+                StandardCharsets.US_ASCII);
+        Assert.assertEquals(expected, VenueReader.read(write(contents
+                .replace("\n", "\r\n"))));
+
+        // the '\r' is the last char of the first read, and '\n' the first
+        // char of the second
+        String name = repeat('n', (1 << 16) - 1);
+        List<Venue> venues = VenueReader.read(write(name
+                + "\r\n50\r\n\r\n"));
+        Assert.assertEquals(1, venues.size());
+        Assert.assertEquals(name, venues.get(0).getName());
+        Assert.assertEquals(50, venues.get(0).getCapacity());
+    }
+
+    /**
+     * Integers may be signed, and have leading zeros.
+     */
+    @Test
+    public void testSignedIntegers() throws Exception {
+        List<String> expectedVenues = new ArrayList<>();
+        expectedVenues.add("The Zoo (93)" + LINE_SEPARATOR
+                + "Corridor City to Valley (300): 71" + LINE_SEPARATOR
+                + "Corridor Valley to City (300): 7" + LINE_SEPARATOR);
+        checkVenues(expectedVenues, VenueReader.read(write("The Zoo\n+093\n"
+                + "Valley, City, 0300: +7\nCity, Valley, +300: 071\n\n")));
+
+        // a negative amount of traffic is out of range
+        try {
+            VenueReader.read(write("The Zoo\n93\nValley, City, 300: -7\n\n"));
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+        }
+        // a negative capacity is out of range
+        try {
+            VenueReader.read(write("The Zoo\n-93\n\n"));
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+        }
+        // a sign on its own is not an integer
+        try {
+            VenueReader.read(write("The Zoo\n93\nValley, City, 300: +\n\n"));
+            Assert.fail("FormatException not thrown");
+        } catch (FormatException e) {
+            // OK
+        }
+    }
+
+    /**
+     * The digits of the integers in a corridor line may be grouped in threes
+     * by the grouping separator of the default locale, as Scanner allows.
+     */
+    @Test
+    public void testGroupedIntegers() throws Exception {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.UK);
+            Assert.assertEquals("The Zoo (2000)" + LINE_SEPARATOR
+                    + "Corridor City to Valley (1500): 1000" + LINE_SEPARATOR,
+                    VenueReader.read(write("The Zoo\n2000\n"
+                            + "City, Valley, 1,500: 1,000\n\n")).get(0)
+                            .toString());
+
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            Assert.assertEquals("The Zoo (2000)" + LINE_SEPARATOR
+                    + "Corridor City to Valley (1500): 1000" + LINE_SEPARATOR,
+                    VenueReader.read(write("The Zoo\n2000\n"
+                            + "City, Valley, 1.500: 1.000\n\n")).get(0)
+                            .toString());
+            try {
+                VenueReader.read(write("The Zoo\n2000\n"
+                        + "City, Valley, 1500: 1,000\n\n"));
+                Assert.fail("FormatException not thrown");
+            } catch (FormatException e) {
+                // OK
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
+
+    /**
+     * Integers too large for an int are incorrectly formatted, rather than
+     * wrapped around.
+     */
+    @Test
+    public void testIntegerOverflow() throws Exception {
+        // the largest int is read
+        Assert.assertEquals(Integer.MAX_VALUE, VenueReader.read(write(
+                "The Zoo\n2147483647\n\n")).get(0).getCapacity());
+
+        String[] inputs = { "The Zoo\n2147483648\n\n",
+                "The Zoo\n93\nValley, City, 4294967396: 7\n\n",
+                "The Zoo\n93\nValley, City, 300: 4294967303\n\n",
+                "The Zoo\n93\nValley, City, 300: 99999999999999999999\n\n" };
+        for (String input : inputs) {
+            try {
+                VenueReader.read(write(input));
+                Assert.fail("FormatException not thrown for " + input);
+            } catch (FormatException e) {
+                // OK
+            }
+        }
+    }
+
+    /**
+     * The last venue must be followed by an empty line, whether or not the
+     * file ends with a line terminator.
+     */
+    @Test
+    public void testMissingFinalEmptyLine() throws Exception {
+        Assert.assertEquals(1, VenueReader.read(write("Tivoli\n50\n\n"))
+                .size());
+        String[] inputs = { "Tivoli\n50\n", "Tivoli\n50",
+                "Tivoli\n50\nl0, l1, 100: 25",
+                "Tivoli\n50\nl0, l1, 100: 25\n" };
+        for (String input : inputs) {
+            try {
+                VenueReader.read(write(input));
+                Assert.fail("FormatException not thrown for " + input);
+            } catch (FormatException e) {
+                // OK
+            }
+        }
+    }
+
+    /**
+     * Lines longer than the buffer used to read the file are read whole.
+     */
+    @Test
+    public void testLongLines() throws Exception {
+        String name = repeat('n', 3 * (1 << 16) + 17);
+        String start = repeat('s', 1 << 17);
+        List<Venue> venues = VenueReader.read(write(name + "\n50\n" + start
+                + ", end, 100: 25\n\n"));
+        Assert.assertEquals(1, venues.size());
+        Venue venue = venues.get(0);
+        Assert.assertEquals(name, venue.getName());
+        Assert.assertEquals(25, venue.getTraffic(new Event("e", 50))
+                .getTraffic(new Corridor(new Location(start), new Location(
+                        "end"), 100)));
+    }
+
+    /**
+     * Equal locations and corridors read from files are shared, within a
+     * venue, across venues, and across reads. Corridors that are not shared
+     * compare equal to the shared ones, with the same hash code, and the
+     * ordering of corridors is consistent with equals.
+     */
+    @Test
+    public void testSharedLocationsAndCorridors() throws Exception {
+        String file = write("One\n100\nshare-a, share-b, 100: 10\n"
+                + "share-b, share-c, 100: 20\n\n"
+                + "Two\n100\nshare-b, share-c, 100: 30\n"
+                + "share-c, share-a, 100: 40\n\n");
+        List<Venue> venues = VenueReader.read(file);
+        Corridor ab = corridor(venues.get(0), "share-a", "share-b");
+        Corridor bc = corridor(venues.get(0), "share-b", "share-c");
+        Corridor ca = corridor(venues.get(1), "share-c", "share-a");
+        Assert.assertSame(bc, corridor(venues.get(1), "share-b", "share-c"));
+        Assert.assertSame(ab.getEnd(), bc.getStart());
+        Assert.assertSame(bc.getEnd(), ca.getStart());
+        Assert.assertSame(ca.getEnd(), ab.getStart());
+
+        List<Venue> again = VenueReader.read(file);
+        Assert.assertEquals(venues, again);
+        Assert.assertSame(ab, corridor(again.get(0), "share-a", "share-b"));
+        Assert.assertSame(ca, corridor(again.get(1), "share-c", "share-a"));
+
+        // corridors made separately, including ones that were never read
+        List<Corridor> corridors = new ArrayList<>(Arrays.asList(ab, bc, ca));
+        corridors.add(new Corridor(new Location("share-a"), new Location(
+                "share-b"), 100));
+        corridors.add(new Corridor(new Location("share-b"), new Location(
+                "share-c"), 100));
+        corridors.add(new Corridor(new Location("share-a"), new Location(
+                "share-b"), 99));
+        corridors.add(new Corridor(new Location("share-b"), new Location(
+                "share-a"), 100));
+        Assert.assertEquals(ab, corridors.get(3));
+        Assert.assertEquals(corridors.get(4), bc);
+        for (Corridor first : corridors) {
+            for (Corridor second : corridors) {
+                int order = first.compareTo(second);
+                Assert.assertEquals(first.equals(second), order == 0);
+                Assert.assertEquals(Integer.signum(order), -Integer.signum(
+                        second.compareTo(first)));
+                if (first.equals(second)) {
+                    Assert.assertEquals(first.hashCode(), second.hashCode());
+                }
+            }
+        }
+    }
+
+    // -----Helper Methods-------------------------------
+
+    /**
+     * Returns the corridor with traffic at the given venue that starts and
+     * ends at locations with the given names.
+     * 
+     * @param venue
+     *            The venue whose traffic is searched.
+     * @param start
+     *            The name of the start location of the corridor.
+     * @param end
+     *            The name of the end location of the corridor.
+     * @return The corridor found.
+     */
+    private Corridor corridor(Venue venue, String start, String end) {
+        Traffic traffic = venue.getTraffic(new Event("e", venue
+                .getCapacity()));
+        for (Corridor corridor : traffic.getCorridorsWithTraffic()) {
+            if (corridor.getStart().getName().equals(start)
+                    && corridor.getEnd().getName().equals(end)) {
+                return corridor;
+            }
+        }
+        throw new AssertionError("No corridor from " + start + " to " + end);
+    }
+
+    /**
+     * Writes the given contents to a new file in the temporary folder, and
+     * returns the name of the file.
+     * 
+     * @param contents
+     *            The text to write to the file.
+     * @return The name of the file written.
+     */
+    private String write(String contents) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), contents.getBytes(
+                StandardCharsets.US_ASCII));
+        return file.getPath();
+    }
+
+    /**
+     * Returns a string of the given length, made up of the given character.
+     * 
+     * @param c
+     *            The character to repeat.
+     * @param length
+     *            The length of the string.
+     * @return A string of length copies of c.
+     */
+    private String repeat(char c, int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    /**
+     * Check that the list actualVenues has all of the venues described by
+     * expectedVenueStrings, in the order that they appear in that list.
+     * 
+     * @param expectedVenueStrings
+     *            A list of the expected string representations of the venues
+     *            that should appear in actualVenues.
+     * @param actualVenues
+     *            The list of venues to be checked against expectedVenueStrings.
+     */
+    private void checkVenues(List<String> expectedVenueStrings,
+            List<Venue> actualVenues) {
+        Assert.assertEquals(expectedVenueStrings.size(), actualVenues.size());
+        for (int i = 0; i < expectedVenueStrings.size(); i++) {
+            Assert.assertEquals(expectedVenueStrings.get(i), actualVenues.get(i)
+                    .toString());
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package planner.test;
+
+import planner.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Basic tests for the equality of, and traffic generated by, the
+ * {@link Venue} class.
+ */
+public class VenueTest {
+
+    // the number of traffic records kept by the traffic cache
+    private final static int CACHE_ENTRIES = 16384;
+
+    /**
+     * The shared traffic for an event is scaled from the capacity traffic of
+     * the venue by the size of the event, rounding down, and is the same as
+     * the traffic returned by getTraffic.
+     */
+    @Test
+    public void testScale() {
+        Corridor first = new Corridor(new Location("a"), new Location("b"),
+                100);
+        Corridor second = new Corridor(new Location("b"), new Location("c"),
+                100);
+        Traffic capacityTraffic = new Traffic();
+        capacityTraffic.updateTraffic(first, 10);
+        capacityTraffic.updateTraffic(second, 1);
+        Venue venue = new Venue("v", 30, capacityTraffic);
+
+        Traffic one = venue.getSharedTraffic(new Event("e1", 10));
+        Assert.assertEquals(3, one.getTraffic(first));
+        Assert.assertEquals(0, one.getTraffic(second));
+        Assert.assertEquals(1, one.getCorridorsWithTraffic().size());
+        Traffic two = venue.getSharedTraffic(new Event("e2", 20));
+        Assert.assertEquals(6, two.getTraffic(first));
+        Assert.assertEquals(0, two.getTraffic(second));
+        Traffic three = venue.getSharedTraffic(new Event("e3", 30));
+        Assert.assertTrue(three.sameTraffic(capacityTraffic));
+
+        for (int size = 1; size <= 30; size++) {
+            Event event = new Event("e", size);
+            Assert.assertTrue(venue.getSharedTraffic(event).sameTraffic(venue
+                    .getTraffic(event)));
+        }
+        Assert.assertTrue(one.checkInvariant());
+        Assert.assertTrue(two.checkInvariant());
+    }
+
+    /**
+     * Shared traffic cannot be modified, but copies of it can.
+     */
+    @Test
+    public void testSharedTrafficIsUnmodifiable() {
+        Corridor corridor = new Corridor(new Location("a"), new Location("b"),
+                100);
+        Traffic capacityTraffic = new Traffic();
+        capacityTraffic.updateTraffic(corridor, 10);
+        Venue venue = new Venue("v", 10, capacityTraffic);
+        Event event = new Event("e", 5);
+        Traffic shared = venue.getSharedTraffic(event);
+
+        try {
+            shared.updateTraffic(corridor, 1);
+            Assert.fail("Shared traffic modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            shared.addTraffic(capacityTraffic);
+            Assert.fail("Shared traffic modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            shared.addAndCheckSafe(capacityTraffic);
+            Assert.fail("Shared traffic modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            shared.removeTraffic(shared);
+            Assert.fail("Shared traffic modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Assert.assertEquals(5, shared.getTraffic(corridor));
+
+        // copies, and the traffic from getTraffic, can be modified
+        Traffic copy = new Traffic(shared);
+        copy.updateTraffic(corridor, 1);
+        Assert.assertEquals(6, copy.getTraffic(corridor));
+        Traffic traffic = venue.getTraffic(event);
+        traffic.addTraffic(shared);
+        Assert.assertEquals(10, traffic.getTraffic(corridor));
+        Assert.assertEquals(5, venue.getSharedTraffic(event).getTraffic(
+                corridor));
+    }
+
+    /**
+     * Shared traffic is kept for each venue object and event size: equal
+     * venues that are different objects have separate records.
+     */
+    @Test
+    public void testSharedTrafficIsKeyedByVenue() {
+        Corridor corridor = new Corridor(new Location("a"), new Location("b"),
+                100);
+        Traffic capacityTraffic = new Traffic();
+        capacityTraffic.updateTraffic(corridor, 10);
+        Venue venue = new Venue("v", 10, capacityTraffic);
+        Venue equal = new Venue("v", 10, capacityTraffic);
+        Assert.assertEquals(venue, equal);
+
+        Traffic shared = venue.getSharedTraffic(new Event("e", 5));
+        Assert.assertSame(shared, venue.getSharedTraffic(new Event("f", 5)));
+        Assert.assertNotSame(shared, equal.getSharedTraffic(new Event("e",
+                5)));
+        Assert.assertTrue(shared.sameTraffic(equal.getSharedTraffic(
+                new Event("e", 5))));
+        Assert.assertNotSame(shared, venue.getSharedTraffic(new Event("e",
+                4)));
+    }
+
+    /**
+     * The cache of shared traffic is bounded, and forgets the least recently
+     * used record first.
+     */
+    @Test
+    public void testSharedTrafficEviction() {
+        Venue kept = new Venue("kept", 10, new Traffic());
+        Venue evicted = new Venue("evicted", 10, new Traffic());
+        Venue other = new Venue("other", CACHE_ENTRIES, new Traffic());
+        Event event = new Event("e", 1);
+
+        Traffic evictedTraffic = evicted.getSharedTraffic(event);
+        Traffic keptTraffic = kept.getSharedTraffic(event);
+        // fill the cache, leaving the records above the least recently used
+        for (int size = 1; size <= CACHE_ENTRIES - 2; size++) {
+            other.getSharedTraffic(new Event("e", size));
+        }
+        Assert.assertSame(keptTraffic, kept.getSharedTraffic(event));
+        // one more record forces the least recently used one out
+        other.getSharedTraffic(new Event("e", CACHE_ENTRIES - 1));
+        Assert.assertSame(keptTraffic, kept.getSharedTraffic(event));
+        Assert.assertNotSame(evictedTraffic, evicted.getSharedTraffic(event));
+        Assert.assertTrue(evictedTraffic.sameTraffic(evicted
+                .getSharedTraffic(event)));
+    }
+
+    /**
+     * Venues built from separately constructed, but equal, locations,
+     * corridors and traffic are equal and have equal hash codes, however the
+     * traffic was built up.
+     */
+    @Test
+    public void testEqualVenues() {
+        Traffic forward = new Traffic();
+        Traffic backward = new Traffic();
+        for (int i = 0; i < 6; i++) {
+            forward.updateTraffic(new Corridor(new Location("s"),
+                    new Location("t" + i), 100), i + 1);
+            backward.updateTraffic(new Corridor(new Location("s"),
+                    new Location("t" + (5 - i)), 100), 6 - i);
+        }
+        Venue venue = new Venue("v", 50, forward);
+        Venue equal = new Venue(new String("v"), 50, backward);
+        Assert.assertEquals(venue, equal);
+        Assert.assertEquals(equal, venue);
+        Assert.assertEquals(venue.hashCode(), equal.hashCode());
+        Assert.assertTrue(venue.checkInvariant());
+        Assert.assertTrue(equal.checkInvariant());
+
+        // venues differing only in name, capacity or traffic are not equal
+        Assert.assertNotEquals(venue, new Venue("w", 50, forward));
+        Assert.assertNotEquals(venue, new Venue("v", 51, forward));
+        backward.updateTraffic(new Corridor(new Location("s"),
+                new Location("t0"), 100), 1);
+        Assert.assertNotEquals(venue, new Venue("v", 50, backward));
+    }
+
+    /**
+     * A venue keeps its own copy of its traffic, so its cached hash code
+     * stays valid when the traffic it was created from is changed.
+     */
+    @Test
+    public void testHashCodeIsCached() {
+        Corridor corridor = new Corridor(new Location("a"), new Location("b"),
+                100);
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridor, 10);
+        Venue venue = new Venue("v", 50, traffic);
+        int hash = venue.hashCode();
+
+        traffic.updateTraffic(corridor, 5);
+        Assert.assertEquals(hash, venue.hashCode());
+        Assert.assertTrue(venue.checkInvariant());
+        Assert.assertEquals(10, venue.getTraffic(new Event("e", 50))
+                .getTraffic(corridor));
+        traffic.updateTraffic(corridor, -5);
+        Assert.assertEquals(venue, new Venue("v", 50, traffic));
+        Assert.assertEquals(hash, new Venue("v", 50, traffic).hashCode());
+    }
+
+}